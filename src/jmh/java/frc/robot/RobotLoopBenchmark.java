@@ -0,0 +1,49 @@
+package frc.robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import frc.robot.benchmarks.SimHarness;
+
+/**
+ * A full teleop iteration of the TimedRobot loop (Limelight snapshot, teleopPeriodic, robotPeriodic and dashboards).
+ * Lives in frc.robot so it can call Robot.loopFunc() directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RobotLoopBenchmark {
+    private Robot robot;
+
+    @Setup
+    public void setup() {
+        SimHarness.init();
+        SimHarness.enableTeleop();
+        robot = new Robot();
+        robot.robotInit();
+    }
+
+    @TearDown
+    public void tearDown() {
+        robot.close();
+    }
+
+    @Benchmark
+    public void teleopIteration() {
+        robot.loopFunc();
+    }
+}
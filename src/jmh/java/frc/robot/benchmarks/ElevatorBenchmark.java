@@ -0,0 +1,93 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.wpi.first.wpilibj.simulation.ElevatorSim;
+import frc.robot.Constants;
+import frc.robot.subsystems.commands.Elevator;
+import frc.robot.subsystems.tools.ElevatorController;
+import frc.robot.subsystems.tools.ElevatorEstimator;
+import frc.robot.subsystems.tools.ElevatorProfileCache;
+import frc.robot.subsystems.tools.ElevatorSimulation;
+
+/**
+ * One step of the elevator's control loop, as the control Notifier runs it: the estimator update and the profiled
+ * controller. A move from HOME to the target is recorded against ElevatorSimulation's model in setup; each call
+ * feeds the next recorded measurement in, so every phase of the move (cached profile, settling, holding) is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElevatorBenchmark {
+    private static final double PERIOD = Constants.Elevator.controlPeriodSeconds;
+    private static final double BATTERY_VOLTS = 12.0;
+    // How long to keep recording after the move, so holding at the goal is measured too (s)
+    private static final double HOLD_SECONDS = 0.5;
+
+    @Param({"L2", "L4"})
+    public Elevator.Position target;
+
+    private ElevatorController controller;
+    private ElevatorEstimator estimator;
+    private double[] measuredHeights;
+    private double[] appliedOutputs;
+    private int step;
+
+    @Setup
+    public void setup() {
+        double[] presetHeights = Elevator.presetHeights();
+        ElevatorProfileCache profileCache = new ElevatorProfileCache(presetHeights, ElevatorController.createConstraints(), PERIOD);
+        controller = new ElevatorController(presetHeights, profileCache);
+        estimator = new ElevatorEstimator(PERIOD);
+
+        int home = Elevator.Position.HOME.ordinal();
+        int steps = (int) Math.ceil((profileCache.getDuration(home, target.ordinal()) + HOLD_SECONDS) / PERIOD);
+        measuredHeights = new double[steps];
+        appliedOutputs = new double[steps];
+
+        ElevatorSim model = ElevatorSimulation.createModel();
+        model.setState(presetHeights[home], 0.0);
+        estimator.reset(presetHeights[home]);
+        double output = 0.0;
+        for (int i = 0; i < steps; i++) {
+            measuredHeights[i] = model.getPositionMeters();
+            appliedOutputs[i] = output;
+            estimator.update(output, measuredHeights[i], PERIOD);
+            output = controller.calculate(target.ordinal(), estimator.getHeight(), estimator.getVelocity(), i * PERIOD);
+            model.setInputVoltage(output * BATTERY_VOLTS);
+            model.update(PERIOD);
+        }
+        restart();
+    }
+
+    @Benchmark
+    public double controlStep() {
+        estimator.update(appliedOutputs[step], measuredHeights[step], PERIOD);
+        double output = controller.calculate(target.ordinal(), estimator.getHeight(), estimator.getVelocity(), step * PERIOD);
+        if (++step == measuredHeights.length) {
+            restart();
+        }
+        return output;
+    }
+
+    private void restart() {
+        step = 0;
+        controller.reset();
+        estimator.reset(measuredHeights[0]);
+    }
+}
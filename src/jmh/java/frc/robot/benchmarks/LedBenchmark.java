@@ -0,0 +1,45 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import frc.robot.Constants;
+import frc.robot.subsystems.commands.Led;
+
+/**
+ * Cost of applying one LED pattern to the 101 LED strip, as robotPeriodic does every loop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LedBenchmark {
+    @Param({"IDLE", "AUTONOMOUS", "READY", "DISABLED", "BLANK"})
+    public Constants.Led.StatusList status;
+
+    private Led led;
+
+    @Setup
+    public void setup() {
+        SimHarness.init();
+        led = new Led();
+    }
+
+    @Benchmark
+    public void setStatus() {
+        led.setStatus(status);
+    }
+}
@@ -0,0 +1,77 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import frc.robot.LimelightHelpers;
+
+/**
+ * Limelight NetworkTables decoding: the array based pose/fiducial getters and the full JSON results parse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LimelightBenchmark {
+    private static final String LIMELIGHT = "limelight";
+
+    private final LimelightHelpers.PoseEstimateBuffer poseBuffer = new LimelightHelpers.PoseEstimateBuffer();
+    private final LimelightHelpers.RawFiducialBuffer fiducialBuffer = new LimelightHelpers.RawFiducialBuffer();
+
+    @Setup
+    public void setup() {
+        SimHarness.init();
+        NetworkTable table = NetworkTableInstance.getDefault().getTable(LIMELIGHT);
+        table.getEntry("tx").setDouble(-4.2);
+        table.getEntry("ty").setDouble(3.9);
+        table.getEntry("ta").setDouble(0.62);
+        table.getEntry("botpose_wpiblue").setDoubleArray(SampleData.BOTPOSE_TWO_TAGS);
+        table.getEntry("rawfiducials").setDoubleArray(SampleData.RAW_FIDUCIALS_TWO_TAGS);
+        table.getEntry("json").setString(SampleData.loadJson("two_tags.json"));
+    }
+
+    @Benchmark
+    public double getTargetValues() {
+        return LimelightHelpers.getTX(LIMELIGHT) + LimelightHelpers.getTY(LIMELIGHT) + LimelightHelpers.getTA(LIMELIGHT);
+    }
+
+    @Benchmark
+    public LimelightHelpers.PoseEstimate getBotPoseEstimate() {
+        return LimelightHelpers.getBotPoseEstimate_wpiBlue(LIMELIGHT);
+    }
+
+    @Benchmark
+    public LimelightHelpers.PoseEstimateBuffer getBotPoseEstimateIntoBuffer() {
+        LimelightHelpers.getBotPoseEstimate_wpiBlue(LIMELIGHT, poseBuffer);
+        return poseBuffer;
+    }
+
+    @Benchmark
+    public LimelightHelpers.RawFiducial[] getRawFiducials() {
+        return LimelightHelpers.getRawFiducials(LIMELIGHT);
+    }
+
+    @Benchmark
+    public int getRawFiducialsIntoBuffer() {
+        return LimelightHelpers.getRawFiducials(LIMELIGHT, fiducialBuffer);
+    }
+
+    @Benchmark
+    public LimelightHelpers.LimelightResults getLatestResults() {
+        return LimelightHelpers.getLatestResults(LIMELIGHT);
+    }
+}
@@ -0,0 +1,51 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import frc.robot.LimelightHelpers;
+
+/**
+ * ObjectMapper databind vs the streaming ResultsDecoder on the same JSON dumps.
+ * LimelightResultsDecoderTest checks that both decoders agree on them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LimelightJsonBenchmark {
+    @Param({"one_tag.json", "two_tags.json", "six_tags_mixed.json"})
+    public String sample;
+
+    private String json;
+    private LimelightHelpers.ResultsDecoder decoder;
+
+    @Setup
+    public void setup() {
+        json = SampleData.loadJson(sample);
+        decoder = new LimelightHelpers.ResultsDecoder();
+    }
+
+    @Benchmark
+    public LimelightHelpers.LimelightResults objectMapper() {
+        return LimelightHelpers.parseResults(json);
+    }
+
+    @Benchmark
+    public LimelightHelpers.LimelightResults streamingDecoder() {
+        return decoder.decode(json);
+    }
+}
@@ -0,0 +1,46 @@
+package frc.robot.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Representative Limelight outputs, shaped the way LLOS 2025 publishes them.
+ */
+final class SampleData {
+    private SampleData() {}
+
+    /*
+     * botpose_wpiblue with two tags in view:
+     * [x, y, z, roll, pitch, yaw, latency, tagCount, tagSpan, avgDist, avgArea,
+     *  then (id, txnc, tync, ta, distToCamera, distToRobot, ambiguity) per tag]
+     */
+    static final double[] BOTPOSE_TWO_TAGS = {
+        3.12, 4.05, 0.0, 0.0, 0.0, 178.4, 24.6, 2, 0.41, 2.27, 0.62,
+        18, -6.31, 4.12, 0.71, 2.18, 2.21, 0.08,
+        17, 9.44, 3.87, 0.53, 2.36, 2.40, 0.12
+    };
+
+    /*
+     * rawfiducials for the same frame: 7 values per tag.
+     */
+    static final double[] RAW_FIDUCIALS_TWO_TAGS = {
+        18, -6.31, 4.12, 0.71, 2.18, 2.21, 0.08,
+        17, 9.44, 3.87, 0.53, 2.36, 2.40, 0.12
+    };
+
+    /*
+     * Load a json dump from src/jmh/resources/limelight.
+     */
+    static String loadJson(String name) {
+        try (InputStream in = SampleData.class.getResourceAsStream("/limelight/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No limelight sample named " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
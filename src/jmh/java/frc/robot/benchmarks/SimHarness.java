@@ -0,0 +1,39 @@
+package frc.robot.benchmarks;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+
+/**
+ * Shared setup for benchmarks that touch WPILib hardware classes.
+ * Everything runs against the desktop HAL sim, so no robot is needed.
+ */
+public final class SimHarness {
+    private static boolean initialized = false;
+
+    private SimHarness() {}
+
+    /**
+     * Initialize the HAL once per benchmark JVM.
+     */
+    public static synchronized void init() {
+        if (!initialized) {
+            if (!HAL.initialize(500, 0)) {
+                throw new IllegalStateException("Failed to initialize the HAL sim");
+            }
+            initialized = true;
+        }
+    }
+
+    /**
+     * Put the simulated Driver Station into enabled teleop, as it would be during a match.
+     */
+    public static void enableTeleop() {
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAutonomous(false);
+        DriverStationSim.setTest(false);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+        DriverStation.refreshData();
+    }
+}
@@ -1,7 +1,24 @@
 package frc.robot;
 
 public class Constants {
-    public static class Robot {}
+    public static class Robot {
+        // How many loops the profiler aggregates before publishing to the "Perf" table (50 loops = 1 second)
+        public static final int perfPublishPeriodLoops = 50;
+
+        // Maximum publish rates for dashboard telemetry (values are only sent when they change)
+        public static final double telemetryFastRateHz = 50.0;
+        public static final double telemetrySlowRateHz = 5.0;
+
+        // Thread priorities (see ThreadPriorities). Real-time priorities are 1 - 99, higher runs first;
+        // the elevator's control Notifier sits above the main loop.
+        public static final boolean mainThreadRealTime = true;
+        public static final int mainThreadPriority = 15;
+        public static final boolean controlThreadRealTime = true;
+        public static final int controlThreadPriority = 25;
+
+        // How often loop/callback period distributions are published to "Perf/Jitter" (s)
+        public static final double jitterPublishPeriodSeconds = 1.0;
+    }
 
     public static class Elevator {
         public static final int sEncoderID1 = 0;
@@ -22,6 +39,58 @@ public class Constants {
         public static final double ki = 0.0;
         public static final double kd = 0.7;
 
+        // Use the motion profiled controller (ProfiledPIDController + ElevatorFeedforward) instead of the bare PID above
+        public static final boolean useProfiledControl = true;
+
+        // Motion profile limits (m/s, m/s^2). Chosen so the feedforward stays inside maxSpeedDown on the way down.
+        public static final double maxVelocity = 0.8;
+        public static final double maxAcceleration = 1.5;
+
+        // Profiled feedback gains (percent output per m of error)
+        public static final double profiledKp = 4.0;
+        public static final double profiledKi = 0.0;
+        public static final double profiledKd = 0.0;
+
+        // Feedforward gains, in percent output (kV per m/s, kA per m/s^2). kG matches gravityComp.
+        public static final double kS = 0.02;
+        public static final double kG = 0.05;
+        public static final double kV = 0.45;
+        public static final double kA = 0.05;
+
+        // How close (m, m/s) the elevator has to be to its goal to count as there
+        public static final double goalPositionTolerance = 0.02;
+        public static final double goalVelocityTolerance = 0.05;
+
+        // A move starts from the cached preset-to-preset profile when the elevator is this close (m, m/s) to resting at a preset
+        public static final double presetMatchTolerance = 0.03;
+        public static final double presetMatchVelocity = 0.05;
+
+        // Run the profiled controller (and the state estimator) on its own Notifier thread at this period (s),
+        // instead of from the main loop. The main loop only posts the preset to move to.
+        public static final boolean useControlNotifier = true;
+        public static final double controlPeriodSeconds = 0.005;
+
+        // Homing: profiled approach towards HOME, then creep down at homingSlowSpeed below homingSlowHeight (m)
+        // until the endstop's interrupt fires
+        public static final double homingSlowHeight = 0.14;
+        public static final double homingSlowSpeed = -0.13;
+
+        // Kalman filter for height and velocity (see ElevatorEstimator). The controller uses its estimate when enabled.
+        public static final boolean useStateEstimator = true;
+        // How much the model is trusted (m, m/s per step) vs the encoder (m)
+        public static final double estimatorPositionStdDev = 0.02;
+        public static final double estimatorVelocityStdDev = 0.4;
+        public static final double estimatorEncoderStdDev = 1.0 / countsPer1M;
+
+        // Simulation model (estimates: two CIMs, ~7:1, 1" drum). These put the holding output near gravityComp
+        // and the free speed near 1 / kV.
+        public static final double simGearing = 7.0;
+        public static final double simCarriageMassKg = 7.0;
+        public static final double simDrumRadiusMeters = 0.0254;
+        public static final double simMaxHeightMeters = 1.23;
+        // The endstop is pressed below this height
+        public static final double simEndstopHeightMeters = 0.005;
+
         public enum Position {
             HOME,
             L1,
@@ -43,6 +112,9 @@ public class Constants {
 
         public static final int m_intake1ID = 3;
         public static final int m_intake2ID = 4;
+
+        // Advance the intake on beam break edges from an interrupt (as well as polling every loop)
+        public static final boolean useBeamBreakInterrupt = true;
     }
 
     public static class Drive {
@@ -61,9 +133,96 @@ public class Constants {
         public static final double driveSpeedMax = 0.95;
 
         public static final double turnMultiplier = 1.0;
+
+        // Drive geometry for odometry. There are no drive encoders, so wheel speed is estimated as
+        // output * maxWheelSpeed (estimates: six-CIM-class KoP drivetrain, 6" wheels, 8.45:1)
+        public static final double trackWidthMeters = 0.56;
+        public static final double maxWheelSpeedMetersPerSecond = 3.6;
+    }
+
+    public static class PoseEstimation {
+        // Use the Limelight's MegaTag2 poses (solved with the heading we send it) rather than MegaTag1.
+        // Off: there's no gyro, so the only heading we could send is dead-reckoned and MegaTag2 would never correct it.
+        // MegaTag1 solves heading from the tags itself, so vision keeps the heading in check. Only turn on with a gyro.
+        public static final boolean useMegaTag2 = false;
+
+        // How much the dead-reckoned odometry is trusted (x, y in m, heading in rad)
+        public static final double odometryStdDevXY = 0.1;
+        public static final double odometryStdDevHeading = 0.1;
+
+        // How much a vision pose is trusted (x, y in m, heading in rad) with one tag at 1 m. VisionFilter scales
+        // these by distance squared over tag count. MegaTag2's heading is just ours echoed back.
+        public static final double visionStdDevXY = 0.3;
+        public static final double visionStdDevHeading = 0.5;
+        public static final double megaTag2StdDevHeading = 9999999.0;
+
+        // Vision frames are rejected (see VisionFilter) when a lone tag is more ambiguous than this,
+        // the tags are further away than these (m), the pose is this far off the field (m), or the frame is this old (s)
+        public static final double maxSingleTagAmbiguity = 0.3;
+        public static final double maxSingleTagDistance = 3.0;
+        public static final double maxMultiTagDistance = 6.0;
+        public static final double fieldMarginMeters = 0.5;
+        public static final double maxVisionAgeSeconds = 0.3;
+
+        // Most vision measurements kept from one loop
+        public static final int maxVisionBatch = 8;
+    }
+
+    public static class Field {
+        // 2025 field, blue alliance origin (m)
+        public static final double lengthMeters = 17.548;
+        public static final double widthMeters = 8.052;
+    }
+
+    public static class Can {
+        // Motor demands closer than this to the last one sent are not re-sent
+        public static final double outputEpsilon = 1e-3;
+
+        // Frame periods (ms), see CanFrames
+        public static final int leaderGeneralPeriodMs = 10;
+        public static final int unusedStatusPeriodMs = 255;
+        public static final int controlPeriodMs = 20;
+        public static final int configTimeoutMs = 50;
+
+        // How often the bus utilization and error counts are read, in loops
+        public static final int statusSamplePeriodLoops = 25;
+    }
+
+    public static class Logging {
+        // A USB stick plugged into the roboRIO is mounted here
+        public static final String usbMountPoint = "/u";
+        public static final String usbLogDirectory = "/u/logs";
+        public static final String rioLogDirectory = "/home/lvuser/logs";
+
+        // Old logs are deleted at startup until the log directory is under these limits
+        public static final long maxUsbLogBytes = 4L * 1024 * 1024 * 1024;
+        public static final long maxRioLogBytes = 256L * 1024 * 1024;
+        public static final int maxLogFiles = 200;
     }
 
-    public static class Field {}
+    public static class Limelight {
+        public static final String name = "limelight";
+
+        // Parse the Limelight's JSON results on a background thread (only needed by code that reads LimelightResults)
+        public static final boolean asyncResults = false;
+
+        // Record every frame into a LimelightSampleBuffer (four NT listeners). Nothing reads the samples yet, so off
+        // unless something that uses Limelight.getSamples() is being tried out.
+        public static final boolean recordSamples = false;
+        // How many captured frames the sample ring buffer keeps (~1.4 s at 90 fps)
+        public static final int sampleBufferSize = 128;
+
+        // Proportional gain for aiming at a target with tx (see Limelight.aimOutput)
+        public static final double aimKp = 0.42;
+
+        // Aim at tx corrected for how far the robot has turned since the frame was captured (see AimController).
+        // Without the latency the loop tolerates a higher gain (check with ./gradlew gainSweep).
+        // Off until validated on the robot: with no gyro the heading history is dead-reckoned from the drive outputs.
+        public static final boolean latencyCompensatedAim = false;
+        public static final double compensatedAimKp = 0.6;
+        // How much heading history is kept for the correction (s), well over the Limelight's worst latency
+        public static final double headingHistorySeconds = 0.5;
+    }
 
     public static class Led {
         public static final int l_ledID = 0;
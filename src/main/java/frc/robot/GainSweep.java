@@ -0,0 +1,295 @@
+package frc.robot;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.ElevatorSim;
+import frc.robot.subsystems.commands.Elevator;
+import frc.robot.subsystems.commands.Limelight;
+import frc.robot.subsystems.tools.AimController;
+import frc.robot.subsystems.tools.ElevatorController;
+import frc.robot.subsystems.tools.ElevatorProfileCache;
+import frc.robot.subsystems.tools.ElevatorSimulation;
+
+/**
+ * Offline tuning for the elevator's profiled gains and the Limelight aim gain.
+ *
+ * Every candidate gain set runs a batch of simulated moves (or aims) against its own model and controller, so
+ * nothing is shared between candidates except read-only data, and the candidates are spread over every core with a
+ * fork-join pool. Nothing here touches the HAL. Each run is scored on settle time, overshoot and final error, and the
+ * Pareto-best gain sets (no other set is at least as good on all three and better on one) are printed and written
+ * as CSV, with every candidate, to the output directory.
+ *
+ * Run with ./gradlew gainSweep
+ */
+public final class GainSweep {
+    private static final double DT = TimedRobot.kDefaultPeriod;
+    // The elevator controller runs at whatever rate the robot runs it (its own Notifier, or the main loop)
+    private static final double ELEVATOR_DT = Constants.Elevator.useControlNotifier && Constants.Elevator.useProfiledControl
+        ? Constants.Elevator.controlPeriodSeconds
+        : TimedRobot.kDefaultPeriod;
+
+    // Elevator search grid (profiled kp and kd)
+    private static final double[] ELEVATOR_KP = range(1.0, 12.0, 0.5);
+    private static final double[] ELEVATOR_KD = range(0.0, 0.6, 0.05);
+    // Moves scored for every elevator candidate (from, to)
+    private static final Elevator.Position[][] ELEVATOR_MOVES = {
+        {Elevator.Position.HOME, Elevator.Position.L2},
+        {Elevator.Position.HOME, Elevator.Position.L4},
+        {Elevator.Position.L4, Elevator.Position.L3},
+        {Elevator.Position.L3, Elevator.Position.HOME},
+    };
+    // How long to keep running after the profile ends, to catch late oscillation
+    private static final double ELEVATOR_SETTLE_WINDOW = 2.0;
+
+    // Aim search grid
+    private static final double[] AIM_KP = range(0.1, 1.5, 0.02);
+    // Starting heading errors (degrees) scored for every aim candidate
+    private static final double[] AIM_START_ERRORS = {-20.0, 10.0, 25.0};
+    private static final double AIM_RUN_SECONDS = 3.0;
+    private static final double AIM_TOLERANCE_DEGREES = 1.0;
+    // Drivetrain turning model: yaw rate at full rotation output, and a first order lag on reaching it
+    private static final double AIM_MAX_YAW_RATE = 300.0;
+    private static final double AIM_YAW_TIME_CONSTANT = 0.15;
+    // Limelight model: frame period and capture-to-NetworkTables latency (seconds)
+    private static final double AIM_FRAME_PERIOD = 1.0 / 90.0;
+    private static final double AIM_LATENCY = 0.035;
+    private static final double AIM_PHYSICS_DT = 0.001;
+
+    private GainSweep() {}
+
+    /**
+     * Scores for one gain set. Lower is better for all three.
+     */
+    static final class Result {
+        final double[] gains;
+        final double settleTime;
+        final double overshoot;
+        final double finalError;
+        boolean pareto;
+
+        Result(double[] gains, double settleTime, double overshoot, double finalError) {
+            this.gains = gains;
+            this.settleTime = settleTime;
+            this.overshoot = overshoot;
+            this.finalError = finalError;
+        }
+
+        boolean dominates(Result other) {
+            return settleTime <= other.settleTime && overshoot <= other.overshoot && finalError <= other.finalError
+                && (settleTime < other.settleTime || overshoot < other.overshoot || finalError < other.finalError);
+        }
+    }
+
+    public static void main(String... args) throws Exception {
+        Path outputDir = Path.of(args.length > 0 ? args[0] : "build/reports/gainsweep");
+        Files.createDirectories(outputDir);
+
+        // The profiles only depend on the constraints, so every candidate reads the same cache
+        double[] presetHeights = Elevator.presetHeights();
+        ElevatorProfileCache cache = new ElevatorProfileCache(presetHeights, ElevatorController.createConstraints(), ELEVATOR_DT);
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            long start = System.nanoTime();
+            List<Result> elevator = pool.submit(() -> IntStream.range(0, ELEVATOR_KP.length * ELEVATOR_KD.length)
+                .parallel()
+                .mapToObj(i -> scoreElevator(presetHeights, cache, ELEVATOR_KP[i / ELEVATOR_KD.length], ELEVATOR_KD[i % ELEVATOR_KD.length]))
+                .toList()).get();
+            report("Elevator", new String[] {"profiledKp", "profiledKd"}, "m", elevator, outputDir.resolve("elevator.csv"));
+
+            List<Result> aim = pool.submit(() -> IntStream.range(0, AIM_KP.length)
+                .parallel()
+                .mapToObj(i -> scoreAim(AIM_KP[i], false))
+                .toList()).get();
+            report("Limelight aim", new String[] {"aimKp"}, "deg", aim, outputDir.resolve("aim.csv"));
+
+            List<Result> compensatedAim = pool.submit(() -> IntStream.range(0, AIM_KP.length)
+                .parallel()
+                .mapToObj(i -> scoreAim(AIM_KP[i], true))
+                .toList()).get();
+            report("Limelight aim (latency compensated)", new String[] {"compensatedAimKp"}, "deg", compensatedAim,
+                outputDir.resolve("aim_compensated.csv"));
+
+            System.out.printf("Ran %d elevator moves and %d aims on %d threads in %.1f s%n",
+                elevator.size() * ELEVATOR_MOVES.length, (aim.size() + compensatedAim.size()) * AIM_START_ERRORS.length,
+                pool.getParallelism(), (System.nanoTime() - start) / 1e9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // -----------------------------------------------------------------------
+    // ELEVATOR
+    // -----------------------------------------------------------------------
+
+    /*
+     * Run every scored move with one gain set. Worst case over the moves is what counts.
+     */
+    static Result scoreElevator(double[] presetHeights, ElevatorProfileCache cache, double kp, double kd) {
+        ElevatorController controller = new ElevatorController(presetHeights, cache, kp, 0.0, kd);
+        ElevatorSim model = ElevatorSimulation.createModel();
+
+        double settleTime = 0.0;
+        double overshoot = 0.0;
+        double finalError = 0.0;
+        for (Elevator.Position[] move : ELEVATOR_MOVES) {
+            int from = move[0].ordinal();
+            int to = move[1].ordinal();
+            double goal = presetHeights[to];
+            double direction = Math.signum(goal - presetHeights[from]);
+            model.setState(presetHeights[from], 0.0);
+            controller.reset();
+
+            double runTime = cache.getDuration(from, to) + ELEVATOR_SETTLE_WINDOW;
+            double lastOutside = 0.0;
+            double moveOvershoot = 0.0;
+            for (double t = 0.0; t < runTime; t += ELEVATOR_DT) {
+                double output = controller.calculate(to, model.getPositionMeters(), model.getVelocityMetersPerSecond(), t);
+                model.setInputVoltage(output * 12.0);
+                model.update(ELEVATOR_DT);
+
+                double error = model.getPositionMeters() - goal;
+                moveOvershoot = Math.max(moveOvershoot, error * direction);
+                if (Math.abs(error) > Constants.Elevator.goalPositionTolerance) {
+                    lastOutside = t + ELEVATOR_DT;
+                }
+            }
+            settleTime = Math.max(settleTime, lastOutside >= runTime ? Double.POSITIVE_INFINITY : lastOutside);
+            overshoot = Math.max(overshoot, moveOvershoot);
+            finalError = Math.max(finalError, Math.abs(model.getPositionMeters() - goal));
+        }
+        return new Result(new double[] {kp, kd}, settleTime, overshoot, finalError);
+    }
+
+    // -----------------------------------------------------------------------
+    // AIM
+    // -----------------------------------------------------------------------
+
+    /*
+     * Turn to face a target from a few starting errors with one aim gain.
+     * The controller only sees tx from the last published Limelight frame, like on the robot.
+     * With compensated set, tx is corrected by how far the robot has turned since that frame was captured
+     * (see AimController), as if from a perfect heading history.
+     */
+    static Result scoreAim(double kP, boolean compensated) {
+        double settleTime = 0.0;
+        double overshoot = 0.0;
+        double finalError = 0.0;
+        for (double startError : AIM_START_ERRORS) {
+            double error = startError;
+            // Total turn so far, in the direction that reduces tx
+            double yaw = 0.0;
+            double yawRate = 0.0;
+            double rotation = 0.0;
+
+            // Frames captured but not yet published: capture time and tx, oldest first
+            int maxPending = (int) Math.ceil(AIM_LATENCY / AIM_FRAME_PERIOD) + 2;
+            double[] pendingTime = new double[maxPending];
+            double[] pendingTx = new double[maxPending];
+            double[] pendingYaw = new double[maxPending];
+            int pendingHead = 0;
+            int pendingCount = 0;
+            double publishedTx = startError;
+            double publishedYaw = 0.0;
+            double nextFrame = 0.0;
+            double nextLoop = 0.0;
+
+            double lastOutside = 0.0;
+            double runOvershoot = 0.0;
+            double errorSign = Math.signum(startError);
+            for (double t = 0.0; t < AIM_RUN_SECONDS; t += AIM_PHYSICS_DT) {
+                if (t >= nextFrame) {
+                    pendingTime[(pendingHead + pendingCount) % maxPending] = t;
+                    pendingTx[(pendingHead + pendingCount) % maxPending] = error;
+                    pendingYaw[(pendingHead + pendingCount) % maxPending] = yaw;
+                    pendingCount++;
+                    nextFrame += AIM_FRAME_PERIOD;
+                }
+                while (pendingCount > 0 && t >= pendingTime[pendingHead] + AIM_LATENCY) {
+                    publishedTx = pendingTx[pendingHead];
+                    publishedYaw = pendingYaw[pendingHead];
+                    pendingHead = (pendingHead + 1) % maxPending;
+                    pendingCount--;
+                }
+                if (t >= nextLoop) {
+                    // DriveSubsystem.drive clamps, then arcadeDrive squares the rotation
+                    // Turning to reduce tx is turning right (clockwise), so it's a negative rotation for backProject
+                    double tx = compensated ? AimController.backProject(publishedTx, -(yaw - publishedYaw)) : publishedTx;
+                    double command = Math.max(-1.0, Math.min(Limelight.aimOutput(tx, kP, 1.0), 1.0));
+                    rotation = command * Math.abs(command);
+                    nextLoop += DT;
+                }
+
+                yawRate += (rotation * AIM_MAX_YAW_RATE - yawRate) * (AIM_PHYSICS_DT / AIM_YAW_TIME_CONSTANT);
+                error -= yawRate * AIM_PHYSICS_DT;
+                yaw += yawRate * AIM_PHYSICS_DT;
+
+                runOvershoot = Math.max(runOvershoot, -error * errorSign);
+                if (Math.abs(error) > AIM_TOLERANCE_DEGREES) {
+                    lastOutside = t + AIM_PHYSICS_DT;
+                }
+            }
+            settleTime = Math.max(settleTime, lastOutside >= AIM_RUN_SECONDS ? Double.POSITIVE_INFINITY : lastOutside);
+            overshoot = Math.max(overshoot, runOvershoot);
+            finalError = Math.max(finalError, Math.abs(error));
+        }
+        return new Result(new double[] {kP}, settleTime, overshoot, finalError);
+    }
+
+    // -----------------------------------------------------------------------
+    // REPORTING
+    // -----------------------------------------------------------------------
+
+    private static void report(String name, String[] gainNames, String unit, List<Result> results, Path csv) throws IOException {
+        List<Result> front = new ArrayList<>();
+        for (Result candidate : results) {
+            candidate.pareto = results.stream().noneMatch(other -> other.dominates(candidate));
+            if (candidate.pareto) {
+                front.add(candidate);
+            }
+        }
+        front.sort(Comparator.comparingDouble((Result r) -> r.settleTime).thenComparingDouble(r -> r.overshoot));
+
+        System.out.printf("%n%s: %d candidates, %d on the Pareto front%n", name, results.size(), front.size());
+        for (Result result : front) {
+            StringBuilder gains = new StringBuilder();
+            for (int i = 0; i < gainNames.length; i++) {
+                gains.append(String.format("%s=%.3f ", gainNames[i], result.gains[i]));
+            }
+            System.out.printf("  %s settle %.2f s, overshoot %.4f %s, final error %.4f %s%n",
+                gains, result.settleTime, result.overshoot, unit, result.finalError, unit);
+        }
+
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(csv))) {
+            writer.println(String.join(",", gainNames) + ",settle_s,overshoot_" + unit + ",final_error_" + unit + ",pareto");
+            for (Result result : results) {
+                StringBuilder row = new StringBuilder();
+                for (double gain : result.gains) {
+                    row.append(gain).append(',');
+                }
+                row.append(result.settleTime).append(',').append(result.overshoot).append(',')
+                    .append(result.finalError).append(',').append(result.pareto);
+                writer.println(row);
+            }
+        }
+        System.out.println("  Wrote " + csv);
+    }
+
+    private static double[] range(double start, double end, double step) {
+        int count = (int) Math.round((end - start) / step) + 1;
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = start + i * step;
+        }
+        return values;
+    }
+}
@@ -21,13 +21,18 @@ import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonFormat.Shape;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.concurrent.ConcurrentHashMap;
@@ -38,7 +43,7 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class LimelightHelpers {
 
-    private static final Map<String, DoubleArrayEntry> doubleArrayEntries = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, DoubleArrayEntry>> doubleArrayEntries = new ConcurrentHashMap<>();
 
     /**
      * Represents a Color/Retroreflective Target Result extracted from JSON Output
@@ -574,6 +579,128 @@ public class LimelightHelpers {
 
     }
 
+    /**
+     * Reusable container for raw fiducial results.
+     * Stores each field in a preallocated primitive array, so decoding into it does not allocate.
+     * Only the first {@code count} slots hold valid data.
+     */
+    public static class RawFiducialBuffer {
+        public static final int DEFAULT_CAPACITY = 16;
+
+        public int count = 0;
+        public final int[] id;
+        public final double[] txnc;
+        public final double[] tync;
+        public final double[] ta;
+        public final double[] distToCamera;
+        public final double[] distToRobot;
+        public final double[] ambiguity;
+
+        public RawFiducialBuffer() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public RawFiducialBuffer(int capacity) {
+            id = new int[capacity];
+            txnc = new double[capacity];
+            tync = new double[capacity];
+            ta = new double[capacity];
+            distToCamera = new double[capacity];
+            distToRobot = new double[capacity];
+            ambiguity = new double[capacity];
+        }
+
+        public int capacity() {
+            return id.length;
+        }
+
+        /**
+         * Copies one fiducial out of a Limelight array, where its 7 values start at baseIndex.
+         * Returns false (and stores nothing) once the buffer is full.
+         */
+        boolean add(double[] inData, int baseIndex) {
+            if (count >= id.length) {
+                return false;
+            }
+            id[count] = (int) inData[baseIndex];
+            txnc[count] = inData[baseIndex + 1];
+            tync[count] = inData[baseIndex + 2];
+            ta[count] = inData[baseIndex + 3];
+            distToCamera[count] = inData[baseIndex + 4];
+            distToRobot[count] = inData[baseIndex + 5];
+            ambiguity[count] = inData[baseIndex + 6];
+            count++;
+            return true;
+        }
+    }
+
+    /**
+     * Reusable container for raw neural detector results.
+     * Corners are stored as 8 values per detection: [c0x, c0y, c1x, c1y, c2x, c2y, c3x, c3y].
+     */
+    public static class RawDetectionBuffer {
+        public static final int DEFAULT_CAPACITY = 16;
+
+        public int count = 0;
+        public final int[] classId;
+        public final double[] txnc;
+        public final double[] tync;
+        public final double[] ta;
+        public final double[] corners;
+
+        public RawDetectionBuffer() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public RawDetectionBuffer(int capacity) {
+            classId = new int[capacity];
+            txnc = new double[capacity];
+            tync = new double[capacity];
+            ta = new double[capacity];
+            corners = new double[capacity * 8];
+        }
+
+        public int capacity() {
+            return classId.length;
+        }
+    }
+
+    /**
+     * Reusable, allocation free counterpart to PoseEstimate.
+     * The pose is kept as primitive x/y/yaw fields; call toPose2d() only where a Pose2d is really needed.
+     */
+    public static class PoseEstimateBuffer {
+        public boolean valid = false;
+        public double x = 0;
+        public double y = 0;
+        public double yawDegrees = 0;
+        public double timestampSeconds = 0;
+        public long ntTimestampMicros = 0;
+        public double latency = 0;
+        public int tagCount = 0;
+        public double tagSpan = 0;
+        public double avgTagDist = 0;
+        public double avgTagArea = 0;
+        public boolean isMegaTag2 = false;
+
+        public final RawFiducialBuffer rawFiducials;
+
+        public PoseEstimateBuffer() {
+            this(RawFiducialBuffer.DEFAULT_CAPACITY);
+        }
+
+        public PoseEstimateBuffer(int fiducialCapacity) {
+            rawFiducials = new RawFiducialBuffer(fiducialCapacity);
+        }
+
+        /**
+         * Builds a Pose2d from the decoded pose. Allocates.
+         */
+        public Pose2d toPose2d() {
+            return new Pose2d(x, y, Rotation2d.fromDegrees(yawDegrees));
+        }
+    }
+
     /**
      * Encapsulates the state of an internal Limelight IMU.
      */
@@ -608,6 +735,293 @@ public class LimelightHelpers {
     }
 
 
+    /**
+     * Schema specific, streaming decoder for Limelight JSON results.
+     * Reads the dump token by token with Jackson's JsonParser instead of binding it by reflection, fills the pose
+     * and fiducial fields into one reusable LimelightResults, and skips the Retro, Classifier, Detector and Barcode
+     * sections entirely (they are always left empty).
+     * Fiducial targets come from a preallocated pool; any beyond its capacity are skipped.
+     * The decoder can own several output buffers (each a LimelightResults with its own target pool), so results in one
+     * buffer can be handed to another thread while the next dump is decoded into another.
+     * Not thread safe: the results in a buffer are overwritten by the next decode into that buffer.
+     */
+    public static class ResultsDecoder {
+        public static final int DEFAULT_FIDUCIAL_CAPACITY = 16;
+
+        private final JsonFactory factory = new JsonFactory();
+        private final LimelightResults[] buffers;
+        private final LimelightTarget_Fiducial[][] fiducialPools;
+        // fiducialViews[b][n] is a length n array over the first n pooled targets of buffer b, so
+        // results.targets_Fiducials.length is still the target count without allocating a new array per frame.
+        private final LimelightTarget_Fiducial[][][] fiducialViews;
+
+        // The buffer being decoded into
+        private LimelightResults results;
+        private LimelightTarget_Fiducial[] fiducialPool;
+        private LimelightTarget_Fiducial[][] fiducialView;
+
+        public ResultsDecoder() {
+            this(DEFAULT_FIDUCIAL_CAPACITY, 1);
+        }
+
+        public ResultsDecoder(int fiducialCapacity, int bufferCount) {
+            buffers = new LimelightResults[bufferCount];
+            fiducialPools = new LimelightTarget_Fiducial[bufferCount][fiducialCapacity];
+            fiducialViews = new LimelightTarget_Fiducial[bufferCount][fiducialCapacity + 1][];
+            for (int b = 0; b < bufferCount; b++) {
+                buffers[b] = new LimelightResults();
+                for (int i = 0; i < fiducialCapacity; i++) {
+                    fiducialPools[b][i] = new LimelightTarget_Fiducial();
+                }
+                for (int n = 0; n <= fiducialCapacity; n++) {
+                    fiducialViews[b][n] = new LimelightTarget_Fiducial[n];
+                    System.arraycopy(fiducialPools[b], 0, fiducialViews[b][n], 0, n);
+                }
+            }
+        }
+
+        /**
+         * Decodes a JSON results dump into the first buffer.
+         * @param json JSON string as published on the Limelight's "json" entry
+         * @return The decoder's reusable LimelightResults, valid until the next call
+         */
+        public LimelightResults decode(String json) {
+            return decode(json, 0);
+        }
+
+        /**
+         * Decodes a JSON results dump into one of the decoder's buffers.
+         * @param json JSON string as published on the Limelight's "json" entry
+         * @param buffer Index of the buffer to decode into
+         * @return That buffer's LimelightResults, valid until the next decode into the same buffer
+         */
+        public LimelightResults decode(String json, int buffer) {
+            long start = System.nanoTime();
+            results = buffers[buffer];
+            fiducialPool = fiducialPools[buffer];
+            fiducialView = fiducialViews[buffer];
+            reset();
+
+            try (JsonParser parser = factory.createParser(json)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "Expected a JSON object");
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    switch (field) {
+                        case "pID":
+                            results.pipelineID = parser.getValueAsDouble();
+                            break;
+                        case "tl":
+                            results.latency_pipeline = parser.getValueAsDouble();
+                            break;
+                        case "cl":
+                            results.latency_capture = parser.getValueAsDouble();
+                            break;
+                        case "ts":
+                            results.timestamp_LIMELIGHT_publish = parser.getValueAsDouble();
+                            break;
+                        case "ts_rio":
+                            results.timestamp_RIOFPGA_capture = parser.getValueAsDouble();
+                            break;
+                        case "v":
+                            results.valid = value == JsonToken.VALUE_TRUE || (value != JsonToken.VALUE_FALSE && parser.getValueAsDouble() != 0.0);
+                            break;
+                        case "botpose":
+                            readArray(parser, results.botpose);
+                            break;
+                        case "botpose_wpired":
+                            readArray(parser, results.botpose_wpired);
+                            break;
+                        case "botpose_wpiblue":
+                            readArray(parser, results.botpose_wpiblue);
+                            break;
+                        case "botpose_tagcount":
+                            results.botpose_tagcount = parser.getValueAsDouble();
+                            break;
+                        case "botpose_span":
+                            results.botpose_span = parser.getValueAsDouble();
+                            break;
+                        case "botpose_avgdist":
+                            results.botpose_avgdist = parser.getValueAsDouble();
+                            break;
+                        case "botpose_avgarea":
+                            results.botpose_avgarea = parser.getValueAsDouble();
+                            break;
+                        case "t6c_rs":
+                            readArray(parser, results.camerapose_robotspace);
+                            break;
+                        case "Fiducial":
+                            readFiducials(parser);
+                            break;
+                        default:
+                            parser.skipChildren();
+                            break;
+                    }
+                }
+            } catch (IOException e) {
+                results.error = "lljson error: " + e.getMessage();
+            }
+
+            results.latency_jsonParse = (System.nanoTime() - start) * .000001;
+            return results;
+        }
+
+        private void reset() {
+            results.error = null;
+            results.pipelineID = 0;
+            results.latency_pipeline = 0;
+            results.latency_capture = 0;
+            results.timestamp_LIMELIGHT_publish = 0;
+            results.timestamp_RIOFPGA_capture = 0;
+            results.valid = false;
+            results.botpose_tagcount = 0;
+            results.botpose_span = 0;
+            results.botpose_avgdist = 0;
+            results.botpose_avgarea = 0;
+            Arrays.fill(results.botpose, 0);
+            Arrays.fill(results.botpose_wpired, 0);
+            Arrays.fill(results.botpose_wpiblue, 0);
+            Arrays.fill(results.camerapose_robotspace, 0);
+            results.targets_Fiducials = fiducialView[0];
+        }
+
+        private void readFiducials(JsonParser parser) throws IOException {
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                return;
+            }
+            int count = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                if (count < fiducialPool.length) {
+                    readFiducial(parser, fiducialPool[count]);
+                    count++;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            results.targets_Fiducials = fiducialView[count];
+        }
+
+        private static void readFiducial(JsonParser parser, LimelightTarget_Fiducial target) throws IOException {
+            // Pooled targets keep their arrays and last family, so anything this frame doesn't send must be cleared.
+            // The old family is kept aside so an unchanged one is reused instead of allocated.
+            String previousFamily = target.fiducialFamily;
+            target.fiducialFamily = null;
+            Arrays.fill(target.cameraPose_TargetSpace, 0);
+            Arrays.fill(target.robotPose_FieldSpace, 0);
+            Arrays.fill(target.robotPose_TargetSpace, 0);
+            Arrays.fill(target.targetPose_CameraSpace, 0);
+            Arrays.fill(target.targetPose_RobotSpace, 0);
+            target.fiducialID = 0;
+            target.ta = 0;
+            target.tx = 0;
+            target.ty = 0;
+            target.tx_pixels = 0;
+            target.ty_pixels = 0;
+            target.tx_nocrosshair = 0;
+            target.ty_nocrosshair = 0;
+            target.ts = 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "fID":
+                        target.fiducialID = parser.getValueAsDouble();
+                        break;
+                    case "fam":
+                        target.fiducialFamily = readString(parser, previousFamily);
+                        break;
+                    case "t6c_ts":
+                        readArray(parser, target.cameraPose_TargetSpace);
+                        break;
+                    case "t6r_fs":
+                        readArray(parser, target.robotPose_FieldSpace);
+                        break;
+                    case "t6r_ts":
+                        readArray(parser, target.robotPose_TargetSpace);
+                        break;
+                    case "t6t_cs":
+                        readArray(parser, target.targetPose_CameraSpace);
+                        break;
+                    case "t6t_rs":
+                        readArray(parser, target.targetPose_RobotSpace);
+                        break;
+                    case "ta":
+                        target.ta = parser.getValueAsDouble();
+                        break;
+                    case "tx":
+                        target.tx = parser.getValueAsDouble();
+                        break;
+                    case "ty":
+                        target.ty = parser.getValueAsDouble();
+                        break;
+                    case "txp":
+                        target.tx_pixels = parser.getValueAsDouble();
+                        break;
+                    case "typ":
+                        target.ty_pixels = parser.getValueAsDouble();
+                        break;
+                    case "tx_nocross":
+                        target.tx_nocrosshair = parser.getValueAsDouble();
+                        break;
+                    case "ty_nocross":
+                        target.ty_nocrosshair = parser.getValueAsDouble();
+                        break;
+                    case "ts":
+                        target.ts = parser.getValueAsDouble();
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
+            }
+        }
+
+        /*
+         * Reads a numeric array into a fixed size destination. Extra values are ignored, missing ones are zeroed.
+         */
+        private static void readArray(JsonParser parser, double[] out) throws IOException {
+            int i = 0;
+            if (parser.currentToken() == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (i < out.length) {
+                        out[i] = parser.getValueAsDouble();
+                    }
+                    i++;
+                }
+            } else {
+                parser.skipChildren();
+            }
+            for (; i < out.length; i++) {
+                out[i] = 0;
+            }
+        }
+
+        /*
+         * Returns previous if the current text token is equal to it, so repeated values don't allocate a new String.
+         */
+        private static String readString(JsonParser parser, String previous) throws IOException {
+            if (previous != null && parser.getTextLength() == previous.length()) {
+                char[] chars = parser.getTextCharacters();
+                int offset = parser.getTextOffset();
+                boolean same = true;
+                for (int i = 0; i < previous.length(); i++) {
+                    if (chars[offset + i] != previous.charAt(i)) {
+                        same = false;
+                        break;
+                    }
+                }
+                if (same) {
+                    return previous;
+                }
+            }
+            return parser.getText();
+        }
+    }
+
     private static ObjectMapper mapper;
 
     /**
@@ -748,6 +1162,63 @@ public class LimelightHelpers {
         return new PoseEstimate(pose, adjustedTimestamp, latency, tagCount, tagSpan, tagDist, tagArea, rawFiducials, isMegaTag2);
     }
 
+    /**
+     * Decodes a botpose array (as published by the Limelight) into a reusable PoseEstimateBuffer.
+     * Does not allocate. Fiducials beyond the buffer's capacity are dropped.
+     *
+     * @param poseArray The botpose array: pose, latency, tag stats, then 7 values per fiducial
+     * @param timestampMicros NetworkTables timestamp of the array, in microseconds
+     * @param isMegaTag2 Whether the array came from a MegaTag2 topic
+     * @param out Buffer to decode into
+     * @return True if the array held a pose from at least one tag, false (with out.valid = false) otherwise
+     */
+    public static boolean decodePoseEstimate(double[] poseArray, long timestampMicros, boolean isMegaTag2, PoseEstimateBuffer out) {
+        out.rawFiducials.count = 0;
+        out.isMegaTag2 = isMegaTag2;
+        out.ntTimestampMicros = timestampMicros;
+        if (poseArray.length < 6) {
+            out.valid = false;
+            out.tagCount = 0;
+            return false;
+        }
+
+        out.x = poseArray[0];
+        out.y = poseArray[1];
+        out.yawDegrees = poseArray[5];
+        out.latency = extractArrayEntry(poseArray, 6);
+        out.tagCount = (int) extractArrayEntry(poseArray, 7);
+        out.tagSpan = extractArrayEntry(poseArray, 8);
+        out.avgTagDist = extractArrayEntry(poseArray, 9);
+        out.avgTagArea = extractArrayEntry(poseArray, 10);
+
+        // Convert server timestamp from microseconds to seconds and adjust for latency
+        out.timestampSeconds = (timestampMicros / 1000000.0) - (out.latency / 1000.0);
+
+        int valsPerFiducial = 7;
+        if (poseArray.length == 11 + valsPerFiducial * out.tagCount) {
+            for (int i = 0; i < out.tagCount; i++) {
+                if (!out.rawFiducials.add(poseArray, 11 + (i * valsPerFiducial))) {
+                    break;
+                }
+            }
+        }
+
+        // With no tags in view the Limelight still publishes a full array, of zeros
+        out.valid = out.tagCount > 0;
+        return out.valid;
+    }
+
+    /**
+     * Reads a botpose entry and its timestamp as one consistent pair, then decodes it into out.
+     * Retries if a new value lands between reading the array and reading its timestamp.
+     */
+    private static boolean getBotPoseEstimate(String limelightName, String entryName, boolean isMegaTag2, PoseEstimateBuffer out) {
+        DoubleArrayEntry poseEntry = LimelightHelpers.getLimelightDoubleArrayEntry(limelightName, entryName);
+
+        TimestampedDoubleArray tsValue = poseEntry.getAtomic();
+        return decodePoseEstimate(tsValue.value, tsValue.timestamp, isMegaTag2, out);
+    }
+
     /**
      * Gets the latest raw fiducial/AprilTag detection results from NetworkTables.
      * 
@@ -819,6 +1290,80 @@ public class LimelightHelpers {
         return rawDetections;
     }
 
+    /**
+     * Decodes a rawfiducials array into a reusable RawFiducialBuffer. Does not allocate.
+     *
+     * @param rawFiducialArray The rawfiducials array, 7 values per fiducial
+     * @param out Buffer to decode into
+     * @return Number of fiducials decoded
+     */
+    public static int decodeRawFiducials(double[] rawFiducialArray, RawFiducialBuffer out) {
+        out.count = 0;
+        int valsPerEntry = 7;
+        if (rawFiducialArray.length % valsPerEntry != 0) {
+            return 0;
+        }
+
+        int numFiducials = rawFiducialArray.length / valsPerEntry;
+        for (int i = 0; i < numFiducials; i++) {
+            if (!out.add(rawFiducialArray, i * valsPerEntry)) {
+                break;
+            }
+        }
+        return out.count;
+    }
+
+    /**
+     * Gets the latest raw fiducial/AprilTag detection results, decoded into a caller owned buffer.
+     *
+     * @param limelightName Name/identifier of the Limelight
+     * @param out Buffer to decode into
+     * @return Number of fiducials decoded
+     */
+    public static int getRawFiducials(String limelightName, RawFiducialBuffer out) {
+        double[] rawFiducialArray = getLimelightDoubleArrayEntry(limelightName, "rawfiducials").get();
+        return decodeRawFiducials(rawFiducialArray, out);
+    }
+
+    /**
+     * Decodes a rawdetections array into a reusable RawDetectionBuffer. Does not allocate.
+     *
+     * @param rawDetectionArray The rawdetections array, 12 values per detection
+     * @param out Buffer to decode into
+     * @return Number of detections decoded
+     */
+    public static int decodeRawDetections(double[] rawDetectionArray, RawDetectionBuffer out) {
+        out.count = 0;
+        int valsPerEntry = 12;
+        if (rawDetectionArray.length % valsPerEntry != 0) {
+            return 0;
+        }
+
+        int numDetections = Math.min(rawDetectionArray.length / valsPerEntry, out.capacity());
+        for (int i = 0; i < numDetections; i++) {
+            int baseIndex = i * valsPerEntry;
+            out.classId[i] = (int) rawDetectionArray[baseIndex];
+            out.txnc[i] = rawDetectionArray[baseIndex + 1];
+            out.tync[i] = rawDetectionArray[baseIndex + 2];
+            out.ta[i] = rawDetectionArray[baseIndex + 3];
+            System.arraycopy(rawDetectionArray, baseIndex + 4, out.corners, i * 8, 8);
+        }
+        out.count = numDetections;
+        return numDetections;
+    }
+
+    /**
+     * Gets the latest raw neural detector results, decoded into a caller owned buffer.
+     *
+     * @param limelightName Name/identifier of the Limelight
+     * @param out Buffer to decode into
+     * @return Number of detections decoded
+     */
+    public static int getRawDetections(String limelightName, RawDetectionBuffer out) {
+        double[] rawDetectionArray = getLimelightDoubleArrayEntry(limelightName, "rawdetections").get();
+        return decodeRawDetections(rawDetectionArray, out);
+    }
+
     /**
      * Prints detailed information about a PoseEstimate to standard output.
      * Includes timestamp, latency, tag count, tag span, average tag distance,
@@ -879,11 +1424,19 @@ public class LimelightHelpers {
     }
 
     public static DoubleArrayEntry getLimelightDoubleArrayEntry(String tableName, String entryName) {
-        String key = tableName + "/" + entryName;
-        return doubleArrayEntries.computeIfAbsent(key, k -> {
-            NetworkTable table = getLimelightNTTable(tableName);
-            return table.getDoubleArrayTopic(entryName).getEntry(new double[0]);
-        });
+        // Look up by table then entry so that a cache hit doesn't build a key string.
+        Map<String, DoubleArrayEntry> tableEntries = doubleArrayEntries.get(tableName);
+        if (tableEntries == null) {
+            tableEntries = doubleArrayEntries.computeIfAbsent(tableName, k -> new ConcurrentHashMap<>());
+        }
+        DoubleArrayEntry entry = tableEntries.get(entryName);
+        if (entry == null) {
+            entry = tableEntries.computeIfAbsent(entryName, k -> {
+                NetworkTable table = getLimelightNTTable(tableName);
+                return table.getDoubleArrayTopic(entryName).getEntry(new double[0]);
+            });
+        }
+        return entry;
     }
     
     public static double getLimelightNTDouble(String tableName, String entryName) {
@@ -1318,6 +1871,51 @@ public class LimelightHelpers {
         return getBotPoseEstimate(limelightName, "botpose_orb_wpired", true);
     }
 
+    /**
+     * Allocation free variant of getBotPoseEstimate_wpiBlue: decodes into a reusable buffer.
+     *
+     * @param limelightName
+     * @param out Buffer to decode into
+     * @return True if a pose was available
+     */
+    public static boolean getBotPoseEstimate_wpiBlue(String limelightName, PoseEstimateBuffer out) {
+        return getBotPoseEstimate(limelightName, "botpose_wpiblue", false, out);
+    }
+
+    /**
+     * Allocation free variant of getBotPoseEstimate_wpiBlue_MegaTag2: decodes into a reusable buffer.
+     * Make sure you are calling setRobotOrientation() before calling this method.
+     *
+     * @param limelightName
+     * @param out Buffer to decode into
+     * @return True if a pose was available
+     */
+    public static boolean getBotPoseEstimate_wpiBlue_MegaTag2(String limelightName, PoseEstimateBuffer out) {
+        return getBotPoseEstimate(limelightName, "botpose_orb_wpiblue", true, out);
+    }
+
+    /**
+     * Allocation free variant of getBotPoseEstimate_wpiRed: decodes into a reusable buffer.
+     *
+     * @param limelightName
+     * @param out Buffer to decode into
+     * @return True if a pose was available
+     */
+    public static boolean getBotPoseEstimate_wpiRed(String limelightName, PoseEstimateBuffer out) {
+        return getBotPoseEstimate(limelightName, "botpose_wpired", false, out);
+    }
+
+    /**
+     * Allocation free variant of getBotPoseEstimate_wpiRed_MegaTag2: decodes into a reusable buffer.
+     *
+     * @param limelightName
+     * @param out Buffer to decode into
+     * @return True if a pose was available
+     */
+    public static boolean getBotPoseEstimate_wpiRed_MegaTag2(String limelightName, PoseEstimateBuffer out) {
+        return getBotPoseEstimate(limelightName, "botpose_orb_wpired", true, out);
+    }
+
     /**
      * Gets the Pose2d for easy use with Odometry vision pose estimator
      * (addVisionMeasurement)
@@ -1622,15 +2220,22 @@ public class LimelightHelpers {
      * @return LimelightResults object containing all current target data
      */
     public static LimelightResults getLatestResults(String limelightName) {
+        return parseResults(getJSONDump(limelightName));
+    }
+
+    /**
+     * Parses a Limelight JSON results dump into a LimelightResults object.
+     * Safe to call from any thread.
+     * @param json JSON string as published on the Limelight's "json" entry
+     * @return LimelightResults object containing all target data in the dump
+     */
+    public static LimelightResults parseResults(String json) {
 
         long start = System.nanoTime();
         LimelightHelpers.LimelightResults results = new LimelightHelpers.LimelightResults();
-        if (mapper == null) {
-            mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        }
 
         try {
-            results = mapper.readValue(getJSONDump(limelightName), LimelightResults.class);
+            results = getMapper().readValue(json, LimelightResults.class);
         } catch (JsonProcessingException e) {
             results.error = "lljson error: " + e.getMessage();
         }
@@ -1644,4 +2249,11 @@ public class LimelightHelpers {
 
         return results;
     }
-}
\ No newline at end of file
+
+    private static synchronized ObjectMapper getMapper() {
+        if (mapper == null) {
+            mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        }
+        return mapper;
+    }
+}
@@ -0,0 +1,132 @@
+package frc.robot;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.subsystems.tools.LatencyHistogram;
+import frc.robot.subsystems.tools.ReplayInputs;
+
+/**
+ * Feeds a recorded match (a .wpilog written on the robot) back through Robot on a desktop, under the HAL sim.
+ *
+ * Before each loop the recorded inputs are pushed into the sims, then Robot.loopFunc() runs and the sim clock is
+ * stepped by the recorded loop period. Nothing waits on the real clock, so a match replays as fast as the CPU allows.
+ * Stepping goes notifier by notifier and waits for each callback (e.g. the elevator's control loop) to finish,
+ * so what runs on other threads happens at the same points in every replay.
+ * The loop times are reported at the end, so a replay doubles as a performance regression test.
+ *
+ * Run with ./gradlew replay -PreplayLog=path/to/FRC_xxx.wpilog
+ * Arguments: log file, optionally a maximum p99 loop time in microseconds (exits with 1 if it's exceeded).
+ */
+public final class Replay {
+    private Replay() {}
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: Replay <log.wpilog> [max p99 loop time (us)]");
+            System.exit(2);
+        }
+        String logFile = args[0];
+        long maxP99Micros = args.length > 1 ? Long.parseLong(args[1]) : -1;
+
+        DataLogReader reader = new DataLogReader(logFile);
+        if (!reader.isValid()) {
+            System.err.println(logFile + " is not a valid wpilog");
+            System.exit(2);
+        }
+
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Failed to initialize the HAL sim");
+        }
+        // The sim clock only moves when we step it
+        SimHooks.pauseTiming();
+
+        Robot robot = new Robot();
+        robot.robotInit();
+        ReplayInputs.Applier applier = new ReplayInputs.Applier(robot.getElevator());
+
+        LatencyHistogram loopTimes = new LatencyHistogram();
+        long periodMicros = (long) (robot.getPeriod() * 1e6);
+        long overruns = 0;
+
+        int inputsEntry = -1;
+        Map<Integer, String> chooserEntries = new HashMap<>();
+        long firstTimestamp = -1;
+        long lastTimestamp = -1;
+        long wallStart = System.nanoTime();
+
+        for (DataLogRecord record : reader) {
+            if (record.isStart()) {
+                DataLogRecord.StartRecordData start = record.getStartData();
+                if (start.name.equals(ReplayInputs.INPUTS_ENTRY)) {
+                    if (!start.metadata.equals(ReplayInputs.LAYOUT_VERSION)) {
+                        System.err.println("Log was recorded with input layout " + start.metadata
+                            + ", this build reads layout " + ReplayInputs.LAYOUT_VERSION);
+                        System.exit(2);
+                    }
+                    inputsEntry = start.entry;
+                } else if (start.name.startsWith(ReplayInputs.CHOOSER_ENTRY_PREFIX)) {
+                    chooserEntries.put(start.entry, start.name.substring(ReplayInputs.CHOOSER_ENTRY_PREFIX.length()));
+                }
+                continue;
+            }
+            if (record.isControl()) {
+                continue;
+            }
+
+            String chooserKey = chooserEntries.get(record.getEntry());
+            if (chooserKey != null) {
+                applier.applyChooser(chooserKey, record.getString());
+                continue;
+            }
+            if (record.getEntry() != inputsEntry) {
+                continue;
+            }
+
+            long timestamp = record.getTimestamp();
+            if (firstTimestamp < 0) {
+                firstTimestamp = timestamp;
+            } else if (timestamp > lastTimestamp) {
+                SimHooks.stepTiming((timestamp - lastTimestamp) / 1e6);
+            }
+            lastTimestamp = timestamp;
+
+            applier.apply(record.getDoubleArray());
+
+            long loopStart = System.nanoTime();
+            robot.loopFunc();
+            long loopMicros = (System.nanoTime() - loopStart) / 1000;
+            loopTimes.record(loopMicros);
+            if (loopMicros > periodMicros) {
+                overruns++;
+            }
+        }
+
+        double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+        double matchSeconds = loopTimes.getCount() > 0 ? (lastTimestamp - firstTimestamp) / 1e6 : 0.0;
+        robot.close();
+
+        if (loopTimes.getCount() == 0) {
+            System.err.println("No " + ReplayInputs.INPUTS_ENTRY + " records in " + logFile);
+            System.exit(2);
+        }
+
+        System.out.printf("Replayed %d loops (%.1f s of robot time) in %.2f s (%.0fx real time)%n",
+            loopTimes.getCount(), matchSeconds, wallSeconds, wallSeconds > 0 ? matchSeconds / wallSeconds : 0.0);
+        System.out.printf("Loop time (us): p50 %d, p99 %d, max %d, mean %.1f%n",
+            loopTimes.getPercentile(50), loopTimes.getPercentile(99), loopTimes.getMax(), loopTimes.getMean());
+        System.out.printf("Loops over the %d us period: %d%n", periodMicros, overruns);
+
+        if (maxP99Micros >= 0 && loopTimes.getPercentile(99) > maxP99Micros) {
+            System.err.printf("p99 loop time %d us is over the limit of %d us%n", loopTimes.getPercentile(99), maxP99Micros);
+            System.exit(1);
+        }
+        // NetworkTables and the camera server keep non-daemon threads running
+        System.exit(0);
+    }
+}
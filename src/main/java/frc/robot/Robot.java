@@ -3,26 +3,39 @@ package frc.robot;
 import java.security.Key;
 
 import edu.wpi.first.cameraserver.CameraServer;
-import edu.wpi.first.networktables.BooleanPublisher;
-import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.hal.can.CANStatus;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.wpilibj.DataLogManager;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.Timer;
 import frc.robot.subsystems.commands.DriveSubsystem;
 import frc.robot.subsystems.maps.ControllerMap;
+import frc.robot.subsystems.tools.CoalescingMotor;
+import frc.robot.subsystems.tools.ElevatorSimulation;
+import frc.robot.subsystems.tools.JitterMonitor;
+import frc.robot.subsystems.tools.LoopProfiler;
 import frc.robot.subsystems.tools.MapRanges;
+import frc.robot.subsystems.tools.ReplayInputs;
+import frc.robot.subsystems.tools.Telemetry;
+import frc.robot.subsystems.tools.ThreadPriorities;
 import frc.robot.subsystems.commands.Elevator;
 import frc.robot.subsystems.commands.EndEffector;
 import frc.robot.subsystems.commands.Algae;
+import frc.robot.subsystems.commands.DataLogging;
 import frc.robot.subsystems.commands.Led;
 import frc.robot.subsystems.commands.Limelight;
+import frc.robot.subsystems.commands.PoseEstimator;
 // import edu.wpi.first.net.PortForwarder;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-// import edu.wpi.first.wpilibj2.command.button.JoystickButton;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.button.RobotModeTriggers;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
 
 /**
  * The methods in this class are called automatically corresponding to each mode, as described in
@@ -40,9 +53,16 @@ public class Robot extends TimedRobot {
   private Constants.Led.StatusList ledBuffer;
   private Constants.Led.StatusList ledTeleopBuffer;
   private Limelight limelight;
+  private PoseEstimator poseEstimator;
+  private DataLogging dataLogging;
+  private ReplayInputs replayInputs;
+  private ElevatorSimulation elevatorSimulation;
+  private final LoopProfiler profiler = new LoopProfiler(kDefaultPeriod, Constants.Robot.perfPublishPeriodLoops);
+  private final JitterMonitor loopJitter = new JitterMonitor("Main Loop", kDefaultPeriod, Constants.Robot.jitterPublishPeriodSeconds);
   
   private Timer autoTimer;
   private String autoState;
+  private Command autonomousCommand;
 
   private double driveSpeedCurrent;
   private double forward;
@@ -51,7 +71,6 @@ public class Robot extends TimedRobot {
   private boolean useJoystickDrive;
 
   private boolean ledFlashOverride = false;
-  private boolean wasCoralLoaded;
 
   private static final int driveSchemeDefault = 0;
   private static final int driveSchemeDual = 1;
@@ -59,6 +78,7 @@ public class Robot extends TimedRobot {
   private static final String[] DRIVE_SCHEME_STRINGS = {"Single-Controller", "Dual-Controller", "Joystick"};
   private int driveSchemeSelected;
   private final SendableChooser<Integer> driveSchemeChooser = new SendableChooser<>();
+  static final String driveSchemeChooserKey = "How to control the robot?";
 
   private static final String autoDefault = "Default";
   private static final String autoCustom1 = "Custom1";
@@ -67,10 +87,12 @@ public class Robot extends TimedRobot {
   private static final String autoCustom4 = "Custom4";
   private String autoSelected;
   private final SendableChooser<String> autoChooser = new SendableChooser<>();
+  static final String autoChooserKey = "Pick an auto to run in Autonomous.";
 
   private static final Boolean coralLoadedAuto = true;
   private static final Boolean coralUnloadedAuto = false;
   private final SendableChooser<Boolean> autoCoralChooser = new SendableChooser<>();
+  static final String autoCoralChooserKey = "Is coral loaded in the robot for Autonomous?";
 
   private final NetworkTableInstance networkTableInstance = NetworkTableInstance.getDefault();
     
@@ -80,22 +102,35 @@ public class Robot extends TimedRobot {
   private final NetworkTable limelightTable = networkTableInstance.getTable("Limelight");
   private final NetworkTable ledTable = networkTableInstance.getTable("LED's");
   private final NetworkTable autonomousTable = networkTableInstance.getTable("Autonomous");
-
-  DoublePublisher networkDriveForward;
-  StringPublisher networkElevatorRange;
-  BooleanPublisher networkElevatorEndstop;
-  StringPublisher networkEndEffectorStatus;
-  BooleanPublisher networkEndEffectorCoral;
-  StringPublisher networkLEDStatus;
-  BooleanPublisher networkLEDFlashing;
-  StringPublisher networkAutoRunning;
-  StringPublisher networkAutoState;
-  DoublePublisher networkDriveRotation;
-  DoublePublisher networkDriveSpeed;
-  StringPublisher networkElevatorPos;
-  DoublePublisher networkElevatorRHeight;
-  DoublePublisher networkElevatorHeight;
-  BooleanPublisher networkEndEffectorLaser;
+  private final NetworkTable canTable = networkTableInstance.getTable("CAN");
+
+  private final Telemetry telemetry = new Telemetry();
+
+  Telemetry.DoubleTopic networkDriveForward;
+  Telemetry.StringTopic networkElevatorRange;
+  Telemetry.BooleanTopic networkElevatorEndstop;
+  Telemetry.BooleanTopic networkElevatorAtGoal;
+  Telemetry.DoubleTopic networkElevatorEstimatedHeight;
+  Telemetry.DoubleTopic networkElevatorEstimatedVelocity;
+  Telemetry.StringTopic networkEndEffectorStatus;
+  Telemetry.BooleanTopic networkEndEffectorCoral;
+  Telemetry.EnumTopic<Constants.Led.StatusList> networkLEDStatus;
+  Telemetry.BooleanTopic networkLEDFlashing;
+  Telemetry.StringTopic networkAutoState;
+  Telemetry.DoubleTopic networkDriveRotation;
+  Telemetry.DoubleTopic networkDriveSpeed;
+  Telemetry.EnumTopic<Elevator.Position> networkElevatorPos;
+  Telemetry.DoubleTopic networkElevatorRHeight;
+  Telemetry.DoubleTopic networkElevatorHeight;
+  Telemetry.BooleanTopic networkEndEffectorLaser;
+  Telemetry.IntegerTopic networkMotorWrites;
+  Telemetry.IntegerTopic networkMotorSkippedWrites;
+  Telemetry.DoubleTopic networkCanUtilization;
+  Telemetry.IntegerTopic networkCanTxFull;
+  Telemetry.IntegerTopic networkCanBusOff;
+  Telemetry.IntegerTopic networkCanReceiveErrors;
+  Telemetry.IntegerTopic networkCanTransmitErrors;
+  private int loopsSinceCanStatus = 0;
 
   public Robot() {}
 
@@ -110,31 +145,52 @@ public class Robot extends TimedRobot {
     algae = new Algae();
     led = new Led();
     limelight = new Limelight();
+    poseEstimator = new PoseEstimator(driveSubsystem, limelight);
+    dataLogging = new DataLogging(elevator, endEffector, algae, driveSubsystem, led, limelight, poseEstimator);
+
+    // Slow down every CAN status frame nothing reads (see CanFrames)
+    driveSubsystem.configureCanFrames();
+    elevator.configureCanFrames();
+    endEffector.configureCanFrames();
+    algae.configureCanFrames();
 
     autoTimer = new Timer();
     
     // set preventDrive to false on init
     this.preventDrive = false;
   
-    networkDriveForward = driveTable.getDoubleTopic("Drive Forward Value").publish();
-    networkDriveRotation = driveTable.getDoubleTopic("Drive Rotation Value").publish();
-    networkDriveSpeed = driveTable.getDoubleTopic("Drive Speed").publish();
+    // Drive values are published at up to 50 Hz, slow-changing state (strings, enums) at up to 5 Hz.
+    // Either way a topic is only sent when its value changes.
+    networkDriveForward = telemetry.doubleTopic(driveTable, "Drive Forward Value", Constants.Robot.telemetryFastRateHz);
+    networkDriveRotation = telemetry.doubleTopic(driveTable, "Drive Rotation Value", Constants.Robot.telemetryFastRateHz);
+    networkDriveSpeed = telemetry.doubleTopic(driveTable, "Drive Speed", Constants.Robot.telemetryFastRateHz);
     
 
-    networkElevatorPos = elevatorTable.getStringTopic("Elevator Position").publish();
-    networkElevatorRHeight = elevatorTable.getDoubleTopic("Elevator Raw Height").publish();
-    networkElevatorHeight = elevatorTable.getDoubleTopic("Elevator Height").publish();
-    networkElevatorRange = elevatorTable.getStringTopic("Elevator Ranging Towards").publish();
-    networkElevatorEndstop = elevatorTable.getBooleanTopic("Elevator Endstop").publish();
+    networkElevatorPos = telemetry.enumTopic(elevatorTable, "Elevator Position", Constants.Robot.telemetrySlowRateHz);
+    networkElevatorRHeight = telemetry.doubleTopic(elevatorTable, "Elevator Raw Height", Constants.Robot.telemetryFastRateHz);
+    networkElevatorHeight = telemetry.doubleTopic(elevatorTable, "Elevator Height", Constants.Robot.telemetryFastRateHz);
+    networkElevatorRange = telemetry.stringTopic(elevatorTable, "Elevator Ranging Towards", Constants.Robot.telemetrySlowRateHz);
+    networkElevatorEndstop = telemetry.booleanTopic(elevatorTable, "Elevator Endstop", Constants.Robot.telemetryFastRateHz);
+    networkElevatorAtGoal = telemetry.booleanTopic(elevatorTable, "Elevator At Goal", Constants.Robot.telemetryFastRateHz);
+    networkElevatorEstimatedHeight = telemetry.doubleTopic(elevatorTable, "Elevator Estimated Height", Constants.Robot.telemetryFastRateHz);
+    networkElevatorEstimatedVelocity = telemetry.doubleTopic(elevatorTable, "Elevator Estimated Velocity", Constants.Robot.telemetryFastRateHz);
     
-    networkEndEffectorStatus = endEffectorTable.getStringTopic("Intake Status").publish();
-    networkEndEffectorCoral = endEffectorTable.getBooleanTopic("Coral Loaded?").publish();
-    networkEndEffectorLaser = endEffectorTable.getBooleanTopic("Endstop Status").publish();
+    networkEndEffectorStatus = telemetry.stringTopic(endEffectorTable, "Intake Status", Constants.Robot.telemetrySlowRateHz);
+    networkEndEffectorCoral = telemetry.booleanTopic(endEffectorTable, "Coral Loaded?", Constants.Robot.telemetryFastRateHz);
+    networkEndEffectorLaser = telemetry.booleanTopic(endEffectorTable, "Endstop Status", Constants.Robot.telemetryFastRateHz);
 
-    networkLEDStatus = ledTable.getStringTopic("LED Status").publish();
-    networkLEDFlashing = ledTable.getBooleanTopic("LED's Flashing?").publish();
+    networkLEDStatus = telemetry.enumTopic(ledTable, "LED Status", Constants.Robot.telemetrySlowRateHz);
+    networkLEDFlashing = telemetry.booleanTopic(ledTable, "LED's Flashing?", Constants.Robot.telemetryFastRateHz);
 
-    networkAutoState = autonomousTable.getStringTopic("Current Auto Action").publish();
+    networkAutoState = telemetry.stringTopic(autonomousTable, "Current Auto Action", Constants.Robot.telemetrySlowRateHz);
+
+    networkMotorWrites = telemetry.integerTopic(canTable, "Motor Writes", Constants.Robot.telemetrySlowRateHz);
+    networkMotorSkippedWrites = telemetry.integerTopic(canTable, "Motor Skipped Writes", Constants.Robot.telemetrySlowRateHz);
+    networkCanUtilization = telemetry.doubleTopic(canTable, "Bus Utilization (%)", Constants.Robot.telemetrySlowRateHz);
+    networkCanTxFull = telemetry.integerTopic(canTable, "TX Full Count", Constants.Robot.telemetrySlowRateHz);
+    networkCanBusOff = telemetry.integerTopic(canTable, "Bus Off Count", Constants.Robot.telemetrySlowRateHz);
+    networkCanReceiveErrors = telemetry.integerTopic(canTable, "Receive Error Count", Constants.Robot.telemetrySlowRateHz);
+    networkCanTransmitErrors = telemetry.integerTopic(canTable, "Transmit Error Count", Constants.Robot.telemetrySlowRateHz);
 
     SmartDashboard.getBoolean("Prevent Driver Control?", preventDrive);
     SmartDashboard.getBoolean("Use Joysticks to Drive?", useJoystickDrive);
@@ -144,24 +200,69 @@ public class Robot extends TimedRobot {
     autoChooser.addOption("Score on L2", autoCustom2);
     autoChooser.addOption("Score on L4", autoCustom3);
     autoChooser.addOption("SIDE Score on L4", autoCustom4);
-    SmartDashboard.putData("Pick an auto to run in Autonomous.", autoChooser);
+    SmartDashboard.putData(autoChooserKey, autoChooser);
 
     driveSchemeChooser.setDefaultOption("Single-Controller Control", driveSchemeDefault);
     driveSchemeChooser.addOption("Dual-Controller Control", driveSchemeDual);
     driveSchemeChooser.addOption("Joystick Control", driveSchemeJoystick);
-    SmartDashboard.putData("How to control the robot?", driveSchemeChooser);
+    SmartDashboard.putData(driveSchemeChooserKey, driveSchemeChooser);
 
     autoCoralChooser.setDefaultOption("Yes", coralLoadedAuto);
     autoCoralChooser.setDefaultOption("No", coralUnloadedAuto);
-    SmartDashboard.putData("Is coral loaded in the robot for Autonomous?", autoCoralChooser);
+    SmartDashboard.putData(autoCoralChooserKey, autoCoralChooser);
+
+    // Every hardware input is recorded each loop, so the match can be replayed on a desktop (see Replay)
+    replayInputs = new ReplayInputs(DataLogManager.getLog(), elevator, endEffector, limelight.getHandle(),
+        autoChooserKey, driveSchemeChooserKey, autoCoralChooserKey);
 
     elevator.reset();
     ledBuffer = Constants.Led.StatusList.BLANK; 
+
+    configureDefaultCommands();
+    configureBindings();
+    configureProfiling();
+
     CameraServer.startAutomaticCapture();
+
+    // Last, so the camera and NetworkTables threads started above don't inherit the real-time priority
+    loopJitter.setRealTime(ThreadPriorities.applyToCurrentThread("main robot",
+        Constants.Robot.mainThreadRealTime, Constants.Robot.mainThreadPriority));
+  }
+
+  /*
+   * Bracket every iteration of the TimedRobot loop (mode periodic, robotPeriodic, dashboards) with the profiler.
+   * The Limelight is snapshotted first, so the mode periodics and robotPeriodic all see this loop's values.
+   */
+  @Override
+  protected void loopFunc() {
+    loopJitter.tick();
+    profiler.startLoop();
+
+    profiler.start(LoopProfiler.Phase.LIMELIGHT);
+    limelight.periodic();
+    profiler.stop(LoopProfiler.Phase.LIMELIGHT);
+
+    super.loopFunc();
+
+    profiler.endLoop();
+  }
+
+  /*
+   * For Replay, which hands the elevator its recorded homing edges
+   */
+  Elevator getElevator() {
+    return elevator;
   }
 
   @Override
   public void robotPeriodic() {
+    // Record the inputs before the scheduler uses them, with the DS data super.loopFunc() refreshed for this loop.
+    // The mode periodics run first, but only set LEDs and telemetry.
+    profiler.start(LoopProfiler.Phase.LOGGING);
+    elevator.latchInputs();
+    replayInputs.record();
+    profiler.stop(LoopProfiler.Phase.LOGGING);
+
     // // For testing purposes, make the robot think the coral is loaded when we press a button.
     // if (controllerMap.isJoystickButtonPressed(1)) {
     //   endEffector.debugState(0);
@@ -171,403 +272,164 @@ public class Robot extends TimedRobot {
     //   endEffector.debugState(2);
     // }
 
-    // Flash lights when Coral is first loaded.
-    // If on this iteration Coral is loaded, and on the last iteration Coral was not loaded, flash the LED's. 
-    if (endEffector.getCoralLoaded() && wasCoralLoaded == false) {
-      led.startFlashing(Constants.Led.StatusList.LOADED, 3, 0.1);
-    }
-    // If on this iteration Coral is NOT loaded, and on the last iteration WAS loaded, flash.
-    if (!endEffector.getCoralLoaded() && wasCoralLoaded == true) {
-      led.startFlashing(Constants.Led.StatusList.RELEASE, 3, 0.1);
-    }
-
-    // Prepare for the next iteration.
-    wasCoralLoaded = endEffector.getCoralLoaded();
-
-    // If the LED's aren't flashing, set the buffer. If they are, then seperate logic takes over.
-    if (led.getFlashing()) {
-      led.updateFlashing();    
-    } else {
-      led.setStatus(ledBuffer);
-    }
-
-    limelight.periodic();
+    // Poll the triggers and run whichever commands are active (plus the default commands of idle subsystems).
+    // SCHEDULER is the total; configureProfiling() splits it between the subsystems.
+    profiler.start(LoopProfiler.Phase.SCHEDULER);
+    CommandScheduler.getInstance().run();
+    profiler.stop(LoopProfiler.Phase.SCHEDULER);
 
-    networkElevatorPos.set(elevator.getPosition().toString());
+    profiler.start(LoopProfiler.Phase.TELEMETRY);
+    networkElevatorPos.set(elevator.getPosition());
     networkElevatorRHeight.set(elevator.getHeightRaw());
     networkElevatorHeight.set(elevator.getHeight());
     networkElevatorRange.set(elevator.getTargetPosition());
     networkElevatorEndstop.set(elevator.getEndstop());
+    networkElevatorAtGoal.set(elevator.atGoal());
+    networkElevatorEstimatedHeight.set(elevator.getEstimatedHeight());
+    networkElevatorEstimatedVelocity.set(elevator.getEstimatedVelocity());
     
     networkEndEffectorStatus.set(endEffector.getCoralState());
     networkEndEffectorCoral.set(endEffector.getCoralLoaded());
     networkEndEffectorLaser.set(endEffector.getEndstop());
 
-    networkLEDStatus.set(led.getStatus().toString());
+    networkLEDStatus.set(led.getStatus());
     networkLEDFlashing.set(led.getFlashing());
-  }
 
-  @Override
-  public void autonomousInit() {
-    autoSelected = autoChooser.getSelected();
-
-    autoTimer.reset();
-    autoTimer.start();
-    autoTimer.restart();
-    (autonomousTable.getStringTopic("Running Auto").publish()).set(autoSelected);
-
-    if (autoCoralChooser.getSelected()) {
-      endEffector.debugState(2);
+    networkMotorWrites.set(CoalescingMotor.getWrites());
+    networkMotorSkippedWrites.set(CoalescingMotor.getSkippedWrites());
+
+    // Reading the bus status allocates, so only do it every few loops
+    if (++loopsSinceCanStatus >= Constants.Can.statusSamplePeriodLoops) {
+      loopsSinceCanStatus = 0;
+      CANStatus canStatus = RobotController.getCANStatus();
+      networkCanUtilization.set(canStatus.percentBusUtilization * 100.0);
+      networkCanTxFull.set(canStatus.txFullCount);
+      networkCanBusOff.set(canStatus.busOffCount);
+      networkCanReceiveErrors.set(canStatus.receiveErrorCount);
+      networkCanTransmitErrors.set(canStatus.transmitErrorCount);
     }
-  }
-
-  public void autonomousPeriodic() {
-    ledBuffer = Constants.Led.StatusList.AUTONOMOUS;
-    autoState = "Idle";
-    double t = autoTimer.get();
-
-    switch (autoSelected) {
-      // Place a coral on L3
-      case autoDefault:
-        algae.stopArm();
-        algae.stopGrabber();
-
-        if (t < 3) {
-          autoState = "Driving up to Coral Tree";
 
-          endEffector.stop();
-          elevator.home();
-          driveSubsystem.drive(-0.55, limelight.getAimMotorOutput(1.0), 1.0);
+    // Send whatever changed this loop (including values set in the mode periodics)
+    telemetry.periodic();
+    profiler.stop(LoopProfiler.Phase.TELEMETRY);
 
-        } else if (t < 5) {
-          autoState = "Raising Elevator to L3";
-
-          endEffector.stop();
-          driveSubsystem.stop();
-          elevator.gotoL3();
-
-        } else if (t < 6) {
-          autoState = "Releasing Coral on L3";
-
-          elevator.gotoL3();
-          driveSubsystem.stop();
-          endEffector.manualShift(0.7);
-          endEffector.debugState(0);
-
-        } else if (t < 8 ) {
-          autoState = "Lowering Elevator";
-
-          driveSubsystem.stop();
-          elevator.home();
-          endEffector.stop();
-
-        } else {
-          // Finished
-          autoState = "Finished";
-
-          driveSubsystem.stop();
-          elevator.home();
-          endEffector.stop();
-        }
-        break;
-
-      // Drive off starting line, but do nothing else.
-      case autoCustom1:
-        endEffector.stop();
-        elevator.home();
-        algae.stopArm();
-        algae.stopGrabber();
-        if (t < 2) {
-          driveSubsystem.drive(-0.5, 0.0, 1.0);
-        } else {
-          driveSubsystem.stop();
-        }
-        break;
-
-
-      case autoCustom2:
-        algae.stopArm();
-        algae.stopGrabber();
-
-        if (t < 3) {
-          autoState = "Driving up to Coral Tree";
-
-          endEffector.stop();
-          elevator.home();
-          driveSubsystem.drive(-0.5, 0.0, 1.0);
-        
-        } else if (t < 5) {
-          autoState = "Raising Elevator to L2";
-        
-          endEffector.stop();
-          driveSubsystem.stop();
-          elevator.gotoL2();
-        
-        } else if (t < 6) {
-          autoState = "Releasing Coral on L2";
-        
-          elevator.gotoL2();
-          driveSubsystem.stop();
-          endEffector.manualShift(0.7);
-          endEffector.debugState(0);
-        
-        } else if (t < 8 ) {
-          autoState = "Lowering Elevator";
-        
-          driveSubsystem.stop();
-          elevator.home();
-          endEffector.stop();
-        } else {
-          // Finished
-          autoState = "Finished";
-        
-          driveSubsystem.stop();
-          elevator.home();
-          endEffector.stop();
-        }
-        break;
-
-
-      case autoCustom3:
-        algae.stopArm();
-        algae.stopGrabber();
-
-        if (t < 3) {
-          autoState = "Driving up to Coral Tree";
-
-          endEffector.stop();
-          elevator.home();
-          driveSubsystem.drive(-0.55, limelight.getAimMotorOutput(1.1), 1.0);
-        
-        } else if (t < 8) {
-          autoState = "Raising Elevator to L4";
-        
-          endEffector.stop();
-          driveSubsystem.drive(-0.6, limelight.getAimMotorOutput(0.4), 1.0);
-          elevator.gotoL4();
-        
-        } else if (t < 10) {
-          autoState = "Releasing Coral on L4";
-        
-          elevator.gotoL4();
-          driveSubsystem.drive(-0.4, 0.0, 1.0);
-          endEffector.manualShift(0.62);
-          endEffector.debugState(0);
-        
-        } else if (t < 12) {
-          autoState = "Lowering Elevator";
-        
-          driveSubsystem.stop();
-          elevator.home();
-          endEffector.stop();
-        } else  if (t <= 15) {
-          // Finished
-          autoState = "Finished";
-        
-          driveSubsystem.stop();
-          elevator.home();
-          endEffector.stop();
-          autoTimer.stop();
-        }
-        break;
-
-
-      // case autoCustom4:
-      //   if (t < 2) {
-      //     autoState = "Driving close to Coral Tree";
-
-      //     endEffector.stop();
-      //     elevator.home();
-      //     algae.stopGrabber();
-      //     driveSubsystem.drive(-0.54, 0.0, 1.0);
-      //   } else if (t < 5) {
-      //     autoState = "Lifting Arm";
-
-      //     endEffector.stop();
-      //     driveSubsystem.stop();
-      //     algae.stopGrabber();
-      //     algae.manualShiftArm(0.4);
-      //     elevator.gotoAlgaeBottom();
-      //   } else if (t < 6) {
-      //     autoState = "Driving up to Coral Tree";
-
-      //     elevator.gotoAlgaeBottom();
-      //     algae.stopArm();
-      //     algae.manualShiftGrabber(-0.4);
-      //     driveSubsystem.drive(-0.7, 0.0, 1.0);
-      //   } else if (t < 7) {
-      //     autoState = "Grabbing Algae";
-
-      //     elevator.gotoAlgaeBottom();
-      //     algae.manualShiftGrabber(-0.6);
-      //     algae.manualShiftArm(-0.05);
-      //     driveSubsystem.stop();
-      //   } else if (t < 7.5) {
-      //     algae.manualShiftGrabber(-0.6);
-      //     algae.stopArm();
-      //     driveSubsystem.drive(0.2, 0.0, 0.0);
-      //   } else if (t < 8) {
-      //     autoState = "Algae Released, placing Coral";
-
-      //     driveSubsystem.drive(-0.1, 0.4, 1.0);
-      //     algae.stopGrabber();
-      //   } else if (t < 10) {
-      //     autoState = "Raising Elevator";
-
-      //     elevator.gotoL3();
-      //     algae.manualShiftArm(-0.6);
-      //   } else if (t < 12) {
-      //     autoState = "Re-aligning...";
-          
-      //     driveSubsystem.drive(-0.6, 0.0, 1.0);
-      //   } else if (t < 13) {
-          
-      //     driveSubsystem.stop();
-      //     endEffector.releaseCoral();
-      //   } else if (t < 15) {
-      //     endEffector.stop();
-      //     elevator.home();
-      //     algae.stopArm();
-      //   }
-
-      //   break;
-        
-
-      case autoCustom4:
-        algae.stopArm();
-        algae.stopGrabber();
-
-        if (t < 3) {
-          autoState = "Driving up to Coral Tree";
-
-          endEffector.stop();
-          elevator.home();
-          driveSubsystem.drive(-0.65, limelight.getAimMotorOutput(1.0), 1.0);
-        
-        } else if (t < 8) {
-          autoState = "Raising Elevator to L4";
-        
-          endEffector.stop();
-          driveSubsystem.drive(-0.47, limelight.getAimMotorOutput(1.0), 1.0);
-          elevator.gotoL4();
-        
-        } else if (t < 9) {
-          autoState = "Releasing Coral on L4";
-        
-          elevator.gotoL4();
-          driveSubsystem.drive(-0.4, limelight.getAimMotorOutput(1.0), 1.0);
-          endEffector.releaseCoral();
-        
-        } else if (t < 11) {
-          autoState = "Lowering Elevator";
-        
-          driveSubsystem.stop();
-          elevator.home();
-          endEffector.stop();
-        } else  if (t <= 15) {
-          // Finished
-          autoState = "Finished";
-        
-          driveSubsystem.stop();
-          elevator.home();
-          endEffector.stop();
-          autoTimer.stop();
-        }
-        break;
-
-
-      // if none of the above auto's gets triggered (something goes wrong), stop everything
-      default:
-        endEffector.stop();
-        driveSubsystem.stop();
-        elevator.hold();
-        algae.stopArm();
-        algae.stopGrabber();
-        break;
-      }
-      networkAutoState.set(autoState);
+    profiler.start(LoopProfiler.Phase.LOGGING);
+    dataLogging.periodic();
+    profiler.stop(LoopProfiler.Phase.LOGGING);
   }
 
-  @Override
-  public void teleopInit() {
-    driveSchemeSelected = driveSchemeChooser.getSelected();
-    (driveTable.getStringTopic("Drive Scheme").publish()).set(DRIVE_SCHEME_STRINGS[driveSchemeSelected]);
-    elevator.reset();
+  // -------------------------------------------------------------------------------------------------------
+  // DEFAULT COMMANDS AND BINDINGS
+  // -------------------------------------------------------------------------------------------------------
+
+  /*
+   * What each subsystem does when no other command is using it.
+   * Mechanisms that just need to stay stopped are stopped once, then left alone until something else needs them.
+   */
+  private void configureDefaultCommands() {
+    elevator.setDefaultCommand(elevator.run(elevator::hold));
+    endEffector.setDefaultCommand(endEffector.startEnd(endEffector::stop, () -> {}));
+    algae.setDefaultCommand(algae.startEnd(() -> { algae.stopArm(); algae.stopGrabber(); }, () -> {}));
+    // The drive is under motor safety, so it has to be fed every loop
+    driveSubsystem.setDefaultCommand(driveSubsystem.run(driveSubsystem::stop));
+    led.setDefaultCommand(led.run(this::updateLeds).ignoringDisable(true));
   }
 
-  // @SuppressWarnings("unlikely-arg-type")
-  @Override
-  public void teleopPeriodic() {
-    // System.out.println(DriverStation.getAlliance().toString());
-    
-    // if (DriverStation.getAlliance().toString() == "Optional[Red]") {
-    //   ledTeleopBuffer = Constants.Led.StatusList.IDLERED;
-    // } else if (DriverStation.getAlliance().toString() == "Optional[Blue]") {
-    //   ledTeleopBuffer = Constants.Led.StatusList.IDLEBLUE;
-    // }
-
+  /*
+   * Teleop controls. Each binding only schedules its command while its buttons are held.
+   */
+  private void configureBindings() {
+    Trigger teleop = RobotModeTriggers.teleop();
 
     // -------------------------------------------------------------------------------------------------------
     // ELEVATOR
     // -------------------------------------------------------------------------------------------------------
-    
-    if (controllerMap.isLeftDPadC1Pressed()) {
-      elevator.gotoL2();
-    } else if (controllerMap.isUpDPadC1Pressed()) {
-      elevator.gotoL3();
-    } else if (controllerMap.isRightDPadC1Pressed()) {
-      elevator.gotoL4();
-    } else if (controllerMap.isDownDPadC1Pressed()) {
-      elevator.home();
-    // } else if (controllerMap.isRightStickButtonC1Pressed()) {
-    //   elevator.gotoAlgaeTop();
-    // } else if (controllerMap.isLeftStickButtonC1Pressed()) {
-    //   elevator.gotoAlgaeBottom();
-    // } 
-    // } 
-    // else if (driveSchemeSelected == 1 && controllerMap.isNoDPadC1Pressed()) {
-    //   if (0.3 > controllerMap.getLeftYC1() && -0.3 < controllerMap.getLeftYC1()) {
-    //     elevator.manualShift(-0.5 * controllerMap.getLeftYC1());
-    //   } else {
-    //     elevator.hold();
-    //   }
-    } else if (controllerMap.isNoDPadC1Pressed()) {
-      elevator.hold();
-    }
-
-    // else if (controllerMap.isStartButtonC1Pressed()) {
-    //   elevator.manualShift(-0.6);
-    // }
-    // else if (controllerMap.isStartButtonC1Pressed()) {
-    //   elevator.home();
-    // }
+    teleop.and(controllerMap::isLeftDPadC1Pressed).whileTrue(elevator.run(elevator::gotoL2));
+    teleop.and(controllerMap::isUpDPadC1Pressed).whileTrue(elevator.run(elevator::gotoL3));
+    teleop.and(controllerMap::isRightDPadC1Pressed).whileTrue(elevator.run(elevator::gotoL4));
+    teleop.and(controllerMap::isDownDPadC1Pressed).whileTrue(elevator.run(elevator::home));
+    // teleop.and(controllerMap::isRightStickButtonC1Pressed).whileTrue(elevator.run(elevator::gotoAlgaeTop));
+    // teleop.and(controllerMap::isLeftStickButtonC1Pressed).whileTrue(elevator.run(elevator::gotoAlgaeBottom));
+    // Otherwise the default command holds the elevator
 
-    // if (controllerMap.isUpDPadC1Pressed()) {
-    //   elevator.manualShift(0.5);
-    // } else if (controllerMap.isDownDPadC1Pressed()) {
-    //   elevator.manualShift(-0.25);
-    // } else if (controllerMap.isNoDPadC1Pressed()) {
-    //   elevator.hold();
-    // }
-    
     // -------------------------------------------------------------------------------------------------------
     // END EFFECTOR
     // -------------------------------------------------------------------------------------------------------
-    if (controllerMap.isRightBumperC1Pressed()) {
-      endEffector.releaseCoral();
-    } else if (controllerMap.isLeftBumperC1Pressed()) {
-      endEffector.intakeCoral();
-    } else if (controllerMap.isStartButtonC1Pressed()) {
-      endEffector.releaseL1Coral();
-    } else {
-      endEffector.stop();
-    }
-
-    
+    // In dual-controller mode, both of driver 1's triggers eject the coral. This overrides the other end effector buttons.
+    Trigger eject = teleop
+        .and(() -> driveSchemeSelected == driveSchemeDual)
+        .and(controllerMap::isLeftTriggerC1Pressed)
+        .and(controllerMap::isRightTriggerC1Pressed);
+    eject.whileTrue(endEffector.run(() -> {
+      endEffector.manualShift(-0.8);
+      endEffector.debugState(0);
+    }));
+
+    Trigger release = teleop.and(eject.negate()).and(controllerMap::isRightBumperC1Pressed);
+    Trigger intake = teleop.and(eject.negate()).and(release.negate()).and(controllerMap::isLeftBumperC1Pressed);
+    Trigger releaseL1 = teleop.and(eject.negate()).and(release.negate()).and(intake.negate()).and(controllerMap::isStartButtonC1Pressed);
+    release.whileTrue(endEffector.run(endEffector::releaseCoral));
+    intake.whileTrue(endEffector.run(endEffector::intakeCoral));
+    releaseL1.whileTrue(endEffector.run(endEffector::releaseL1Coral));
 
     // -------------------------------------------------------------------------------------------------------
     // ALGAE
     // -------------------------------------------------------------------------------------------------------
+    teleop.and(() -> controllerMap.isAButtonC1Pressed() || controllerMap.isBButtonC1Pressed()
+        || controllerMap.isXButtonC1Pressed() || controllerMap.isYButtonC1Pressed())
+        .whileTrue(algae.run(this::manualAlgae));
+
+    // -------------------------------------------------------------------------------------------------------
+    // DRIVE
+    // -------------------------------------------------------------------------------------------------------
+    teleop.whileTrue(driveSubsystem.run(this::teleopDrive));
+
+    // -------------------------------------------------------------------------------------------------------
+    // LED's
+    // -------------------------------------------------------------------------------------------------------
+    // Flash lights when Coral is first loaded, and again when it's released.
+    Trigger coralLoaded = new Trigger(endEffector::getCoralLoaded);
+    coralLoaded.onTrue(Commands.runOnce(() -> led.startFlashing(Constants.Led.StatusList.LOADED, 3, 0.1)).ignoringDisable(true));
+    coralLoaded.onFalse(Commands.runOnce(() -> led.startFlashing(Constants.Led.StatusList.RELEASE, 3, 0.1)).ignoringDisable(true));
+  }
+
+  /*
+   * Attribute the scheduler's time to the subsystems, as the per-subsystem phases did before they became commands.
+   * Elevator and PoseEstimator time their own periodic(). Each command is timed in a lap from the end of the trigger
+   * polling (or the end of the previous command) to the end of its execute(), under the phase of what it requires.
+   * Must come after configureBindings(), so the first mark is after every trigger.
+   */
+  private void configureProfiling() {
+    elevator.setProfiler(profiler);
+    poseEstimator.setProfiler(profiler);
+
+    CommandScheduler scheduler = CommandScheduler.getInstance();
+    scheduler.getDefaultButtonLoop().bind(profiler::mark);
+    scheduler.onCommandExecute(command -> {
+      LoopProfiler.Phase phase = getProfilerPhase(command);
+      if (phase != null) {
+        profiler.lap(phase);
+      } else {
+        // Needs no subsystem (the LED flashes), so it only counts towards SCHEDULER
+        profiler.mark();
+      }
+    });
+  }
+
+  private LoopProfiler.Phase getProfilerPhase(Command command) {
+    if (command == autonomousCommand) return LoopProfiler.Phase.AUTONOMOUS;
+    if (command.hasRequirement(elevator)) return LoopProfiler.Phase.ELEVATOR;
+    if (command.hasRequirement(endEffector)) return LoopProfiler.Phase.END_EFFECTOR;
+    if (command.hasRequirement(algae)) return LoopProfiler.Phase.ALGAE;
+    if (command.hasRequirement(driveSubsystem)) return LoopProfiler.Phase.DRIVE;
+    if (command.hasRequirement(led)) return LoopProfiler.Phase.LED;
+    return null;
+  }
+
+  /*
+   * The Algae buttons. Only runs while one of them is held; the default command stops both motors afterwards.
+   */
+  private void manualAlgae() {
     if (controllerMap.isAButtonC1Pressed()) {
       algae.manualShiftGrabber(0.4);
     } else if (controllerMap.isBButtonC1Pressed()) {
@@ -583,11 +445,12 @@ public class Robot extends TimedRobot {
     } else {
       algae.stopArm();
     }
+  }
 
-    // -------------------------------------------------------------------------------------------------------
-    // DRIVE
-    // -------------------------------------------------------------------------------------------------------
-    
+  /*
+   * Arcade drive from the controllers, using the selected drive scheme.
+   */
+  private void teleopDrive() {
     // Reset the driving vars
     double forward = 0.0;
     double rotation = 0.0;
@@ -622,15 +485,10 @@ public class Robot extends TimedRobot {
         driveSpeedCurrent = Constants.Drive.driveSpeedFaster;
       }
     } else if (driveSchemeSelected == 1) {
-      // Two Controller
+      // Two Controller (driver 1's triggers eject coral, see configureBindings)
       forward = controllerMap.getLeftYC2();
       rotation = controllerMap.getRightXC2();
 
-      if (controllerMap.isLeftTriggerC1Pressed() && controllerMap.isRightTriggerC1Pressed()) {
-        endEffector.manualShift(-0.8);
-        endEffector.debugState(0);
-      }
-
       if (controllerMap.isLeftTriggerC2Pressed() || controllerMap.isRightTriggerC2Pressed()) {
         driveSpeedCurrent = Constants.Drive.driveSpeedFast;
       } else if (controllerMap.isLeftTriggerC2Pressed() && controllerMap.isRightTriggerC2Pressed()) {
@@ -655,6 +513,171 @@ public class Robot extends TimedRobot {
     }
 
     driveSubsystem.drive(forward, rotation, driveSpeedCurrent); 
+  }
+
+  /*
+   * The LED default command. Runs every loop, even while disabled.
+   */
+  private void updateLeds() {
+    // If the LED's aren't flashing, set the buffer. If they are, then seperate logic takes over.
+    if (led.getFlashing()) {
+      led.updateFlashing();    
+    } else {
+      led.setStatus(ledBuffer);
+    }
+  }
+
+  // -------------------------------------------------------------------------------------------------------
+  // AUTONOMOUS
+  // -------------------------------------------------------------------------------------------------------
+
+  /*
+   * One step of an auto routine: runs the given commands together from when the previous step ended
+   * until endTime seconds into autonomous. Subsystems the step doesn't use fall back to their default commands.
+   */
+  private Command autoStep(String state, double endTime, Command... actions) {
+    return Commands.parallel(actions)
+        .beforeStarting(() -> autoState = state)
+        .until(() -> autoTimer.get() >= endTime);
+  }
+
+  /*
+   * The last step of an auto routine, held until autonomous ends.
+   */
+  private Command autoFinish(String state, Command... actions) {
+    return Commands.parallel(actions).beforeStarting(() -> autoState = state);
+  }
+
+  private Command driveCommand(double forward, double rotation, double speed) {
+    return driveSubsystem.run(() -> driveSubsystem.drive(forward, rotation, speed));
+  }
+
+  private Command aimDriveCommand(double forward, double aimMultiplier, double speed) {
+    return driveSubsystem.run(() -> driveSubsystem.drive(forward, limelight.getAimMotorOutput(aimMultiplier), speed));
+  }
+
+  private Command releaseCommand(double speed) {
+    return endEffector.run(() -> {
+      endEffector.manualShift(speed);
+      endEffector.debugState(0);
+    });
+  }
+
+  /*
+   * Build the command for the auto picked on the dashboard.
+   */
+  private Command getAutonomousCommand(String selected) {
+    switch (selected) {
+      // Place a coral on L3
+      case autoDefault:
+        return Commands.sequence(
+          autoStep("Driving up to Coral Tree", 3, elevator.run(elevator::home), aimDriveCommand(-0.55, 1.0, 1.0)),
+          autoStep("Raising Elevator to L3", 5, elevator.run(elevator::gotoL3)),
+          autoStep("Releasing Coral on L3", 6, elevator.run(elevator::gotoL3), releaseCommand(0.7)),
+          autoStep("Lowering Elevator", 8, elevator.run(elevator::home)),
+          autoFinish("Finished", elevator.run(elevator::home)));
+
+      // Drive off starting line, but do nothing else.
+      case autoCustom1:
+        return Commands.sequence(
+          autoStep("Idle", 2, elevator.run(elevator::home), driveCommand(-0.5, 0.0, 1.0)),
+          autoFinish("Idle", elevator.run(elevator::home)));
+
+      case autoCustom2:
+        return Commands.sequence(
+          autoStep("Driving up to Coral Tree", 3, elevator.run(elevator::home), driveCommand(-0.5, 0.0, 1.0)),
+          autoStep("Raising Elevator to L2", 5, elevator.run(elevator::gotoL2)),
+          autoStep("Releasing Coral on L2", 6, elevator.run(elevator::gotoL2), releaseCommand(0.7)),
+          autoStep("Lowering Elevator", 8, elevator.run(elevator::home)),
+          autoFinish("Finished", elevator.run(elevator::home)));
+
+      case autoCustom3:
+        return Commands.sequence(
+          autoStep("Driving up to Coral Tree", 3, elevator.run(elevator::home), aimDriveCommand(-0.55, 1.1, 1.0)),
+          autoStep("Raising Elevator to L4", 8, elevator.run(elevator::gotoL4), aimDriveCommand(-0.6, 0.4, 1.0)),
+          autoStep("Releasing Coral on L4", 10, elevator.run(elevator::gotoL4), driveCommand(-0.4, 0.0, 1.0), releaseCommand(0.62)),
+          autoStep("Lowering Elevator", 12, elevator.run(elevator::home)),
+          autoFinish("Finished", elevator.run(elevator::home)));
+
+      // Old algae-then-coral routine, from before autos were commands:
+      // t < 2   "Driving close to Coral Tree"  drive(-0.54, 0.0, 1.0), elevator home
+      // t < 5   "Lifting Arm"                  algae arm 0.4, elevator gotoAlgaeBottom
+      // t < 6   "Driving up to Coral Tree"     algae grabber -0.4, drive(-0.7, 0.0, 1.0), elevator gotoAlgaeBottom
+      // t < 7   "Grabbing Algae"               algae grabber -0.6, arm -0.05, elevator gotoAlgaeBottom
+      // t < 7.5                                algae grabber -0.6, drive(0.2, 0.0, 0.0)
+      // t < 8   "Algae Released, placing Coral" drive(-0.1, 0.4, 1.0)
+      // t < 10  "Raising Elevator"             elevator gotoL3, algae arm -0.6
+      // t < 12  "Re-aligning..."               drive(-0.6, 0.0, 1.0)
+      // t < 13                                 endEffector releaseCoral
+      // t < 15                                 elevator home
+
+      case autoCustom4:
+        return Commands.sequence(
+          autoStep("Driving up to Coral Tree", 3, elevator.run(elevator::home), aimDriveCommand(-0.65, 1.0, 1.0)),
+          autoStep("Raising Elevator to L4", 8, elevator.run(elevator::gotoL4), aimDriveCommand(-0.47, 1.0, 1.0)),
+          autoStep("Releasing Coral on L4", 9, elevator.run(elevator::gotoL4), aimDriveCommand(-0.4, 1.0, 1.0), endEffector.run(endEffector::releaseCoral)),
+          autoStep("Lowering Elevator", 11, elevator.run(elevator::home)),
+          autoFinish("Finished", elevator.run(elevator::home)));
+
+      // if none of the above auto's gets triggered (something goes wrong), leave everything on its default command (stopped)
+      default:
+        return Commands.none();
+    }
+  }
+
+  @Override
+  public void autonomousInit() {
+    autoSelected = autoChooser.getSelected();
+    autoState = "Idle";
+
+    autoTimer.reset();
+    autoTimer.start();
+    autoTimer.restart();
+    (autonomousTable.getStringTopic("Running Auto").publish()).set(autoSelected);
+
+    if (autoCoralChooser.getSelected()) {
+      endEffector.debugState(2);
+    }
+
+    autonomousCommand = getAutonomousCommand(autoSelected);
+    CommandScheduler.getInstance().schedule(autonomousCommand);
+  }
+
+  public void autonomousPeriodic() {
+    ledBuffer = Constants.Led.StatusList.AUTONOMOUS;
+
+    profiler.start(LoopProfiler.Phase.TELEMETRY);
+    networkAutoState.set(autoState);
+    dataLogging.logAutoState(autoState);
+    profiler.stop(LoopProfiler.Phase.TELEMETRY);
+  }
+
+  @Override
+  public void autonomousExit() {
+    if (autonomousCommand != null) {
+      autonomousCommand.cancel();
+    }
+  }
+
+  @Override
+  public void teleopInit() {
+    driveSchemeSelected = driveSchemeChooser.getSelected();
+    (driveTable.getStringTopic("Drive Scheme").publish()).set(DRIVE_SCHEME_STRINGS[driveSchemeSelected]);
+    elevator.reset();
+  }
+
+  // @SuppressWarnings("unlikely-arg-type")
+  @Override
+  public void teleopPeriodic() {
+    // System.out.println(DriverStation.getAlliance().toString());
+    
+    // if (DriverStation.getAlliance().toString() == "Optional[Red]") {
+    //   ledTeleopBuffer = Constants.Led.StatusList.IDLERED;
+    // } else if (DriverStation.getAlliance().toString() == "Optional[Blue]") {
+    //   ledTeleopBuffer = Constants.Led.StatusList.IDLEBLUE;
+    // }
+
+    // The subsystems are driven by the command scheduler in robotPeriodic (see configureBindings).
 
     //
     // LED's
@@ -670,9 +693,11 @@ public class Robot extends TimedRobot {
     // Set the global buffer for LED's
     ledBuffer = ledTeleopBuffer;
 
-    networkDriveForward.set(forward);
-    networkDriveRotation.set(rotation);
-    networkDriveSpeed.set(driveSpeedCurrent);
+    profiler.start(LoopProfiler.Phase.TELEMETRY);
+    networkDriveForward.set(driveSubsystem.getLastForward());
+    networkDriveRotation.set(driveSubsystem.getLastRotation());
+    networkDriveSpeed.set(driveSubsystem.getLastSpeed());
+    profiler.stop(LoopProfiler.Phase.TELEMETRY);
   }
 
   @Override
@@ -697,6 +722,10 @@ public class Robot extends TimedRobot {
 
   @Override
   public void simulationInit() {
+    elevatorSimulation = new ElevatorSimulation(elevator);
+    // Step the model as often as the elevator's control loop runs, so it always sees a fresh encoder reading.
+    // (Replay and the benchmarks never call simulationInit: they drive the sensors themselves.)
+    addPeriodic(() -> elevatorSimulation.update(Constants.Elevator.controlPeriodSeconds), Constants.Elevator.controlPeriodSeconds);
   }
 
   @Override
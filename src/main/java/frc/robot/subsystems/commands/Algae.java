@@ -2,17 +2,28 @@ package frc.robot.subsystems.commands;
 
 import com.ctre.phoenix.motorcontrol.can.WPI_VictorSPX;
 
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.subsystems.tools.CanFrames;
+import frc.robot.subsystems.tools.CoalescingMotor;
 
-public class Algae {
-    WPI_VictorSPX m_grabber;
-    WPI_VictorSPX m_arm;
+public class Algae extends SubsystemBase {
+    CoalescingMotor m_grabber;
+    CoalescingMotor m_arm;
 
 
     public Algae(){
-        m_grabber = new WPI_VictorSPX(Constants.Algae.m_grabberID);
+        m_grabber = new CoalescingMotor(new WPI_VictorSPX(Constants.Algae.m_grabberID));
 
-        m_arm = new WPI_VictorSPX(Constants.Algae.m_armID);
+        m_arm = new CoalescingMotor(new WPI_VictorSPX(Constants.Algae.m_armID));
+    }
+
+    /*
+     * Set the CAN frame periods of the arm and grabber controllers. Only call during robotInit.
+     */
+    public void configureCanFrames() {
+        CanFrames.configure(m_arm.getMotor(), CanFrames.Role.OPEN_LOOP);
+        CanFrames.configure(m_grabber.getMotor(), CanFrames.Role.OPEN_LOOP);
     }
 
     public void manualShiftArm(double speed) {
@@ -23,6 +34,14 @@ public class Algae {
         m_grabber.set(speed);
     }
 
+    public double getArmOutput() {
+        return m_arm.get();
+    }
+
+    public double getGrabberOutput() {
+        return m_grabber.get();
+    }
+
     public void feed() {
         m_arm.feed();
         m_grabber.feed();
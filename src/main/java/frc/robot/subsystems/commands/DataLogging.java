@@ -0,0 +1,252 @@
+package frc.robot.subsystems.commands;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.IntegerLogEntry;
+import edu.wpi.first.util.datalog.StringLogEntry;
+import edu.wpi.first.util.datalog.StructLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotBase;
+import frc.robot.Constants;
+import frc.robot.LimelightHelpers;
+
+/**
+ * On-robot binary log of the robot's state, written with WPILib's DataLogManager.
+ * Every value the dashboards get is also logged here as a typed entry, along with motor outputs, Limelight poses,
+ * and (through DriverStation.startDataLog) every joystick axis, button and POV plus the DS mode.
+ * Appending only copies into the DataLog's buffer; a background thread writes it to disk.
+ * Entries use update(), so a value is only appended when it changes.
+ *
+ * Logs go to a USB stick if one is plugged in, otherwise to /home/lvuser/logs. Before a new log is started the
+ * oldest logs in that directory are deleted until it is under its size and file count limits.
+ */
+public class DataLogging {
+    private final Elevator elevator;
+    private final EndEffector endEffector;
+    private final Algae algae;
+    private final DriveSubsystem driveSubsystem;
+    private final Led led;
+    private final Limelight limelight;
+    private final PoseEstimator poseEstimator;
+
+    private final DoubleLogEntry elevatorHeight;
+    private final DoubleLogEntry elevatorRawHeight;
+    private final BooleanLogEntry elevatorEndstop;
+    private final IntegerLogEntry elevatorPosition;
+    private final IntegerLogEntry elevatorTarget;
+    private final DoubleLogEntry elevatorOutput;
+    private final DoubleLogEntry elevatorVelocity;
+    private final BooleanLogEntry elevatorAtGoal;
+    private final DoubleLogEntry elevatorEstimatedHeight;
+    private final DoubleLogEntry elevatorEstimatedVelocity;
+
+    private final IntegerLogEntry endEffectorCoralState;
+    private final BooleanLogEntry endEffectorCoralLoaded;
+    private final BooleanLogEntry endEffectorBeamBreak;
+    private final DoubleLogEntry endEffectorIntake1Output;
+    private final DoubleLogEntry endEffectorIntake2Output;
+
+    private final DoubleLogEntry algaeArmOutput;
+    private final DoubleLogEntry algaeGrabberOutput;
+
+    private final DoubleLogEntry driveForward;
+    private final DoubleLogEntry driveRotation;
+    private final DoubleLogEntry driveSpeed;
+    private final DoubleLogEntry driveLeftOutput;
+    private final DoubleLogEntry driveRightOutput;
+
+    private final IntegerLogEntry ledStatus;
+    private final BooleanLogEntry ledFlashing;
+
+    private final DoubleLogEntry limelightTX;
+    private final DoubleLogEntry limelightTY;
+    private final DoubleLogEntry limelightTA;
+    private final StructLogEntry<Pose2d> limelightPose;
+    private final LimelightHelpers.PoseEstimateBuffer limelightPoseBuffer = new LimelightHelpers.PoseEstimateBuffer();
+    private long lastLimelightPoseMicros = 0;
+
+    private final StructLogEntry<Pose2d> estimatedPose;
+
+    private final StringLogEntry autoState;
+
+    public DataLogging(Elevator elevator, EndEffector endEffector, Algae algae, DriveSubsystem driveSubsystem, Led led, Limelight limelight, PoseEstimator poseEstimator) {
+        this.elevator = elevator;
+        this.endEffector = endEffector;
+        this.algae = algae;
+        this.driveSubsystem = driveSubsystem;
+        this.led = led;
+        this.limelight = limelight;
+        this.poseEstimator = poseEstimator;
+
+        String logDir = chooseLogDirectory();
+        if (logDir != null) {
+            List<String> deleted = rotateLogs(new File(logDir), maxBytesFor(logDir), Constants.Logging.maxLogFiles);
+            DataLogManager.start(logDir);
+            // Only once the log is open: DataLogManager.log() would otherwise start one in the default directory
+            for (String name : deleted) {
+                DataLogManager.log("Deleted old log " + name);
+            }
+        } else {
+            DataLogManager.start();
+        }
+        // Everything worth keeping is logged below as a typed entry, so don't also mirror NetworkTables.
+        DataLogManager.logNetworkTables(false);
+
+        DataLog log = DataLogManager.getLog();
+        DriverStation.startDataLog(log, true);
+
+        elevatorHeight = new DoubleLogEntry(log, "Elevator/Height");
+        elevatorRawHeight = new DoubleLogEntry(log, "Elevator/Raw Height");
+        elevatorEndstop = new BooleanLogEntry(log, "Elevator/Endstop");
+        elevatorPosition = new IntegerLogEntry(log, "Elevator/Position");
+        elevatorTarget = new IntegerLogEntry(log, "Elevator/Target");
+        elevatorOutput = new DoubleLogEntry(log, "Elevator/Motor Output");
+        elevatorVelocity = new DoubleLogEntry(log, "Elevator/Velocity");
+        elevatorAtGoal = new BooleanLogEntry(log, "Elevator/At Goal");
+        elevatorEstimatedHeight = new DoubleLogEntry(log, "Elevator/Estimated Height");
+        elevatorEstimatedVelocity = new DoubleLogEntry(log, "Elevator/Estimated Velocity");
+
+        endEffectorCoralState = new IntegerLogEntry(log, "EndEffector/Coral State");
+        endEffectorCoralLoaded = new BooleanLogEntry(log, "EndEffector/Coral Loaded");
+        endEffectorBeamBreak = new BooleanLogEntry(log, "EndEffector/Beam Break");
+        endEffectorIntake1Output = new DoubleLogEntry(log, "EndEffector/Intake 1 Output");
+        endEffectorIntake2Output = new DoubleLogEntry(log, "EndEffector/Intake 2 Output");
+
+        algaeArmOutput = new DoubleLogEntry(log, "Algae/Arm Output");
+        algaeGrabberOutput = new DoubleLogEntry(log, "Algae/Grabber Output");
+
+        driveForward = new DoubleLogEntry(log, "Drive/Forward");
+        driveRotation = new DoubleLogEntry(log, "Drive/Rotation");
+        driveSpeed = new DoubleLogEntry(log, "Drive/Speed");
+        driveLeftOutput = new DoubleLogEntry(log, "Drive/Left Output");
+        driveRightOutput = new DoubleLogEntry(log, "Drive/Right Output");
+
+        ledStatus = new IntegerLogEntry(log, "LED/Status");
+        ledFlashing = new BooleanLogEntry(log, "LED/Flashing");
+
+        limelightTX = new DoubleLogEntry(log, "Limelight/tx");
+        limelightTY = new DoubleLogEntry(log, "Limelight/ty");
+        limelightTA = new DoubleLogEntry(log, "Limelight/ta");
+        limelightPose = StructLogEntry.create(log, "Limelight/Bot Pose (Blue)", Pose2d.struct);
+
+        estimatedPose = StructLogEntry.create(log, "Pose/Estimated", Pose2d.struct);
+
+        autoState = new StringLogEntry(log, "Autonomous/State");
+    }
+
+    /*
+     * Log this loop's state. Call once per loop, after the subsystems have been updated.
+     */
+    public void periodic() {
+        elevatorHeight.update(elevator.getHeight());
+        elevatorRawHeight.update(elevator.getHeightRaw());
+        elevatorEndstop.update(elevator.getEndstop());
+        elevatorPosition.update(ordinalOf(elevator.getPosition()));
+        elevatorTarget.update(ordinalOf(elevator.getTarget()));
+        elevatorOutput.update(elevator.getMotorOutput());
+        elevatorVelocity.update(elevator.getVelocity());
+        elevatorAtGoal.update(elevator.atGoal());
+        elevatorEstimatedHeight.update(elevator.getEstimatedHeight());
+        elevatorEstimatedVelocity.update(elevator.getEstimatedVelocity());
+
+        endEffectorCoralState.update(endEffector.getCoralStateId());
+        endEffectorCoralLoaded.update(endEffector.getCoralLoaded());
+        endEffectorBeamBreak.update(endEffector.getEndstop());
+        endEffectorIntake1Output.update(endEffector.getIntake1Output());
+        endEffectorIntake2Output.update(endEffector.getIntake2Output());
+
+        algaeArmOutput.update(algae.getArmOutput());
+        algaeGrabberOutput.update(algae.getGrabberOutput());
+
+        driveForward.update(driveSubsystem.getLastForward());
+        driveRotation.update(driveSubsystem.getLastRotation());
+        driveSpeed.update(driveSubsystem.getLastSpeed());
+        driveLeftOutput.update(driveSubsystem.getLeftOutput());
+        driveRightOutput.update(driveSubsystem.getRightOutput());
+
+        ledStatus.update(ordinalOf(led.getStatus()));
+        ledFlashing.update(led.getFlashing());
+
+        limelightTX.update(limelight.getTX());
+        limelightTY.update(limelight.getTY());
+        limelightTA.update(limelight.getTA());
+        // Only log a pose when the Limelight has published a new one.
+        if (limelight.getHandle().getBotPoseEstimate_wpiBlue(limelightPoseBuffer)
+                && limelightPoseBuffer.ntTimestampMicros != lastLimelightPoseMicros) {
+            lastLimelightPoseMicros = limelightPoseBuffer.ntTimestampMicros;
+            limelightPose.append(limelightPoseBuffer.toPose2d());
+        }
+
+        estimatedPose.update(poseEstimator.getPose());
+    }
+
+    /*
+     * Log the current autonomous step (only appended when it changes).
+     */
+    public void logAutoState(String state) {
+        autoState.update(state);
+    }
+
+    private static long ordinalOf(Enum<?> value) {
+        return value == null ? -1 : value.ordinal();
+    }
+
+    /*
+     * USB stick if one is mounted, otherwise the roboRIO's own storage. Null in simulation (use DataLogManager's default).
+     */
+    private static String chooseLogDirectory() {
+        if (!RobotBase.isReal()) {
+            return null;
+        }
+        File usb = new File(Constants.Logging.usbMountPoint);
+        if (usb.isDirectory() && usb.canWrite()) {
+            return Constants.Logging.usbLogDirectory;
+        }
+        return Constants.Logging.rioLogDirectory;
+    }
+
+    private static long maxBytesFor(String logDir) {
+        return logDir.equals(Constants.Logging.usbLogDirectory) ? Constants.Logging.maxUsbLogBytes : Constants.Logging.maxRioLogBytes;
+    }
+
+    /*
+     * Delete the oldest .wpilog files in dir until the rest fit in maxBytes and maxFiles,
+     * leaving room for the log that's about to start. Returns the names of the deleted files.
+     */
+    private static List<String> rotateLogs(File dir, long maxBytes, int maxFiles) {
+        List<String> deleted = new ArrayList<>();
+        File[] logs = dir.listFiles((d, name) -> name.endsWith(".wpilog"));
+        if (logs == null) {
+            return deleted;
+        }
+        Arrays.sort(logs, Comparator.comparingLong(File::lastModified));
+
+        long totalBytes = 0;
+        for (File log : logs) {
+            totalBytes += log.length();
+        }
+
+        int remaining = logs.length;
+        for (File log : logs) {
+            if (totalBytes <= maxBytes && remaining < maxFiles) {
+                break;
+            }
+            long size = log.length();
+            if (log.delete()) {
+                totalBytes -= size;
+                remaining--;
+                deleted.add(log.getName());
+            }
+        }
+        return deleted;
+    }
+}
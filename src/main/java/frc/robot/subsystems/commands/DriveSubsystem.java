@@ -2,36 +2,54 @@ package frc.robot.subsystems.commands;
 
 import com.ctre.phoenix.motorcontrol.can.WPI_VictorSPX;
 import edu.wpi.first.wpilibj.drive.DifferentialDrive;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.subsystems.tools.CanFrames;
+import frc.robot.subsystems.tools.CoalescingMotor;
 
-public class DriveSubsystem {
-    private WPI_VictorSPX m_leftLeader;
+public class DriveSubsystem extends SubsystemBase {
+    private CoalescingMotor m_leftLeader;
     private WPI_VictorSPX m_leftFollower;
-    private WPI_VictorSPX m_rightLeader;
+    private CoalescingMotor m_rightLeader;
     private WPI_VictorSPX m_rightFollower;
     private DifferentialDrive m_robotDrive;
 
+    private double lastForward;
+    private double lastRotation;
+    private double lastSpeed;
+
     public DriveSubsystem() {
         // Drive Motors
-        m_rightLeader = new WPI_VictorSPX(Constants.Drive.m_driveFRID);
+        m_rightLeader = new CoalescingMotor(new WPI_VictorSPX(Constants.Drive.m_driveFRID));
         m_rightFollower = new WPI_VictorSPX(Constants.Drive.m_driveBRID);
-        m_leftLeader = new WPI_VictorSPX(Constants.Drive.m_driveFLID);
+        m_leftLeader = new CoalescingMotor(new WPI_VictorSPX(Constants.Drive.m_driveFLID));
         m_leftFollower = new WPI_VictorSPX(Constants.Drive.m_driveBLID);
 
         m_leftFollower.setInverted(true);
         // Set followers
-        m_rightFollower.follow(m_rightLeader);
-        m_leftFollower.follow(m_leftLeader);
+        m_rightFollower.follow(m_rightLeader.getMotor());
+        m_leftFollower.follow(m_leftLeader.getMotor());
 
         m_rightFollower.setInverted(true);
-        m_rightLeader.setInverted(true);
+        m_rightLeader.getMotor().setInverted(true);
 
         // group
-        m_robotDrive = new DifferentialDrive(m_leftLeader, m_rightLeader);
+        // Outputs go through the coalescing wrappers, so unchanged demands aren't re-sent
+        m_robotDrive = new DifferentialDrive(m_leftLeader::set, m_rightLeader::set);
         m_robotDrive.setSafetyEnabled(true);
         m_robotDrive.setExpiration(1); // Adjust timeout as needed
     }
 
+    /*
+     * Set the CAN frame periods of the drive controllers. Only call during robotInit.
+     */
+    public void configureCanFrames() {
+        CanFrames.configure(m_leftLeader.getMotor(), CanFrames.Role.LEADER);
+        CanFrames.configure(m_rightLeader.getMotor(), CanFrames.Role.LEADER);
+        CanFrames.configure(m_leftFollower, CanFrames.Role.FOLLOWER);
+        CanFrames.configure(m_rightFollower, CanFrames.Role.FOLLOWER);
+    }
+
     // Drive the robot.
     // Speed is multiplied by forward and rotation. 
     // The speeds are as follows:
@@ -43,12 +61,41 @@ public class DriveSubsystem {
     // If you want absolute values, use the "Max" speed.
     public void drive(Double forward, Double rotation, Double speed) {
         // System.out.println("Drive method has been called: " +forward+rotation+speed);
+        lastForward = forward;
+        lastRotation = rotation;
+        lastSpeed = speed;
         forward = Math.min(Math.max(forward * speed, -1.0), 1.0);
         rotation = Math.min(Math.max(rotation * speed, -1.0), 1.0);
 
         m_robotDrive.arcadeDrive(-forward, -rotation);
     }
 
+    /*
+     * The forward, rotation and speed values last passed to drive()
+     */
+    public double getLastForward() {
+        return lastForward;
+    }
+
+    public double getLastRotation() {
+        return lastRotation;
+    }
+
+    public double getLastSpeed() {
+        return lastSpeed;
+    }
+
+    /*
+     * The outputs last sent to the left and right leader motors
+     */
+    public double getLeftOutput() {
+        return m_leftLeader.get();
+    }
+
+    public double getRightOutput() {
+        return m_rightLeader.get();
+    }
+
     public void stop() {
         drive(0.0, 0.0, 1.0);
     }
@@ -1,34 +1,106 @@
 package frc.robot.subsystems.commands;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
 import com.ctre.phoenix.motorcontrol.can.WPI_VictorSPX;
 
 import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.wpilibj.AsynchronousInterrupt;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.Encoder;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.subsystems.tools.CanFrames;
+import frc.robot.subsystems.tools.CoalescingMotor;
+import frc.robot.subsystems.tools.ElevatorController;
+import frc.robot.subsystems.tools.ElevatorEstimator;
+import frc.robot.subsystems.tools.ElevatorProfileCache;
+import frc.robot.subsystems.tools.JitterMonitor;
+import frc.robot.subsystems.tools.LoopProfiler;
+import frc.robot.subsystems.tools.ThreadPriorities;
 import edu.wpi.first.wpilibj.DigitalInput;
 
-public class Elevator {
-    private WPI_VictorSPX m_elevatorLeft;
+public class Elevator extends SubsystemBase {
+    private CoalescingMotor m_elevatorLeft;
     private WPI_VictorSPX m_elevatorRight;
     private Encoder s_encoder;     
     private DigitalInput s_endstop;
+    private final AsynchronousInterrupt endstopInterrupt;
     private final PIDController pid;
+    private final ElevatorController controller;
+    private final ElevatorEstimator estimator;
     private double desiredHeight;
+
+    // High-rate control: the profiled controller runs on controlNotifier. The main loop only posts the preset to move to
+    // into goal (null = leave the motors alone), and reads the results back from the volatile fields below.
+    // The controller and estimator belong to the control thread then (to the main thread otherwise), so nothing locks:
+    // the controller is reset by the control thread whenever there's no goal, and an estimator reset is posted to
+    // estimatorReset (the new height's bits, or NO_RESET).
+    private static final boolean HIGH_RATE_CONTROL = Constants.Elevator.useControlNotifier && Constants.Elevator.useProfiledControl;
+    private static final long NO_RESET = Double.doubleToRawLongBits(Double.NaN);
+    private final AtomicReference<Position> goal = new AtomicReference<>();
+    private final AtomicLong estimatorReset = new AtomicLong(NO_RESET);
+    private final Notifier controlNotifier;
+    private double lastControlTimestamp = Double.NaN;
+    private boolean controllerIdle = true;
+    private JitterMonitor controlJitter;
+    // The preset the controller has reached and settled at, or -1 while moving (one field, so it's always consistent)
+    private volatile int controlReached = -1;
+    private volatile double estimatedHeight;
+    private volatile double estimatedVelocity;
+    // Times periodic() under its own phase, once Robot has handed it over
+    private LoopProfiler profiler;
+
+    // Encoder distance (raw) that reads as zero height. Set by reset(), or by homing to the distance at the endstop's edge.
+    private volatile double zeroOffset = 0.0;
+
+    // Homing: armed by home() while moving down, and cleared by the endstop interrupt once it has captured the edge.
+    // latchInputs() takes the capture on the main thread once per loop, and home() applies it.
+    private volatile boolean homingArmed = false;
+    private volatile boolean edgeCaptured = false;
+    private volatile double edgeDistance;
+    private volatile double edgeTimestamp;
+    // Main thread only: the edge latched for home() to apply, and the one latched this loop (NaN if none, for replay)
+    private boolean homeEdgePending = false;
+    private double homeEdgeDistance;
+    private double homeEdgeTimestamp;
+    private double latchedEdgeDistance = Double.NaN;
+    private double latchedEdgeTimestamp = Double.NaN;
+    // When replaying, edges come from the log (injectHomingEdge) rather than the interrupt
+    private volatile boolean replayingEdges = false;
+    private boolean homedOnSwitch = false;
+    private double lastHomeTimestamp = Double.NaN;
     
     private final double COUNTS_PER_1M = Constants.Elevator.countsPer1M;
     private final double GRAVITY_COMPENSATION = -Constants.Elevator.gravityComp;
     
+    /*
+     * Preset positions, with their heights in meters.
+     */
     public enum Position {
-        HOME,
-        L1,
-        L2,
-        L3,
-        L4,
-        ALGAETOP,
-        ALGAEBOTTOM,
-        UNKNOWN
+        HOME(0.1),
+        L1(0.24),
+        L2(0.21),
+        L3(0.6),
+        // 1.23 is MAX
+        L4(1.23),
+        ALGAETOP(0.8),
+        ALGAEBOTTOM(0.5),
+        UNKNOWN(Double.NaN);
+
+        public final double height;
+
+        Position(double height) {
+            this.height = height;
+        }
     }
 
+    private static final Position[] POSITIONS = Position.values();
+
     private Position lastKnownPosition;
     private Position targetPosition;
 
@@ -38,14 +110,19 @@ public class Elevator {
 
         s_endstop = new DigitalInput(Constants.Elevator.sEndstopID);
 
+        // The endstop reads false when pressed, so the elevator reaching it is a falling edge
+        endstopInterrupt = new AsynchronousInterrupt(s_endstop, (rising, falling) -> onEndstopEdge());
+        endstopInterrupt.setInterruptEdges(false, true);
+
         m_elevatorRight = new WPI_VictorSPX(Constants.Elevator.m_elevatorRightID);
-        m_elevatorLeft = new WPI_VictorSPX(Constants.Elevator.m_elevatorLeftID);
+        m_elevatorLeft = new CoalescingMotor(new WPI_VictorSPX(Constants.Elevator.m_elevatorLeftID));
 
         m_elevatorRight.setInverted(true);
-        m_elevatorRight.follow(m_elevatorLeft);
+        m_elevatorRight.follow(m_elevatorLeft.getMotor());
         
-        m_elevatorLeft.setSafetyEnabled(true);
-        m_elevatorRight.setSafetyEnabled(true);
+        // Only the leader is written to (and watched by motor safety). If the leader stops, the follower does too.
+        m_elevatorLeft.getMotor().setSafetyEnabled(true);
+        m_elevatorRight.setSafetyEnabled(false);
 
 
         // PID values
@@ -53,6 +130,212 @@ public class Elevator {
         // kI 
         // kD gives the controller an extra "nudge", in case it never reaches it's target value.
         pid = new PIDController(Constants.Elevator.kp, Constants.Elevator.ki, Constants.Elevator.kd);
+
+        // Profiled mode (see ElevatorController). The preset-to-preset profiles are computed here, once,
+        // for whichever loop runs the controller.
+        double controlPeriod = HIGH_RATE_CONTROL ? Constants.Elevator.controlPeriodSeconds : TimedRobot.kDefaultPeriod;
+        double[] presetHeights = presetHeights();
+        controller = new ElevatorController(presetHeights,
+            new ElevatorProfileCache(presetHeights, ElevatorController.createConstraints(), controlPeriod));
+
+        estimator = new ElevatorEstimator(controlPeriod);
+        resetEstimator(getHeight());
+
+        endstopInterrupt.enable();
+
+        if (HIGH_RATE_CONTROL) {
+            controlNotifier = new Notifier(this::controlStep);
+            controlNotifier.setName("Elevator Control");
+            controlNotifier.startPeriodic(Constants.Elevator.controlPeriodSeconds);
+        } else {
+            controlNotifier = null;
+        }
+    }
+
+    /*
+     * One step of the high-rate control loop (on the Notifier's thread).
+     * Updates the estimate, then drives towards the posted goal, if there is one.
+     * Disabling drops the goal, so the next enable starts from whatever the main loop asks for, not a stale profile.
+     */
+    private void controlStep() {
+        // The Notifier's thread only exists once it first runs, so it's set up from here
+        if (controlJitter == null) {
+            controlJitter = new JitterMonitor("Elevator Control", Constants.Elevator.controlPeriodSeconds, Constants.Robot.jitterPublishPeriodSeconds);
+            controlJitter.setRealTime(ThreadPriorities.applyToCurrentThread("elevator control",
+                Constants.Robot.controlThreadRealTime, Constants.Robot.controlThreadPriority));
+        }
+        controlJitter.tick();
+
+        double now = Timer.getFPGATimestamp();
+        double dt = Double.isNaN(lastControlTimestamp) ? Constants.Elevator.controlPeriodSeconds : now - lastControlTimestamp;
+        lastControlTimestamp = now;
+
+        double resetHeight = Double.longBitsToDouble(estimatorReset.getAndSet(NO_RESET));
+        if (!Double.isNaN(resetHeight)) {
+            applyEstimatorReset(resetHeight);
+        }
+        updateEstimator(dt);
+
+        Position target = goal.get();
+        if (!DriverStation.isEnabled()) {
+            goal.set(null);
+            target = null;
+        }
+        if (target == null) {
+            if (!controllerIdle) {
+                controller.reset();
+                controlReached = -1;
+                controllerIdle = true;
+            }
+            return;
+        }
+        controllerIdle = false;
+        double motorOutput = calculateProfiled(target, now);
+
+        // Only write if the main loop hasn't taken the motors back (manualShift) since the goal was read
+        synchronized (m_elevatorLeft) {
+            if (goal.get() == target) {
+                m_elevatorLeft.set(-motorOutput);
+            }
+        }
+    }
+
+    /*
+     * Runs on the interrupt thread when the endstop is pressed.
+     * If homing, stop the motor straight away and record where the encoder was at the edge's FPGA timestamp.
+     * The callback runs a little after the edge, so the distance is wound back by the encoder's rate over that delay.
+     */
+    private void onEndstopEdge() {
+        if (!homingArmed || replayingEdges) {
+            return;
+        }
+        manualShift(0.0);
+
+        double timestamp = endstopInterrupt.getFallingTimestamp();
+        double latency = Timer.getFPGATimestamp() - timestamp;
+        edgeDistance = s_encoder.getDistance() - s_encoder.getRate() * latency;
+        edgeTimestamp = timestamp;
+        homingArmed = false;
+        edgeCaptured = true;
+    }
+
+    /*
+     * Take any endstop edge the interrupt has captured since the last loop, for home() to apply.
+     * Call once every loop, right before the inputs are recorded, so recording and homing see the same edge.
+     */
+    public void latchInputs() {
+        latchedEdgeDistance = Double.NaN;
+        latchedEdgeTimestamp = Double.NaN;
+        if (edgeCaptured) {
+            latchedEdgeDistance = edgeDistance;
+            latchedEdgeTimestamp = edgeTimestamp;
+            edgeCaptured = false;
+            setHomeEdge(latchedEdgeTimestamp, latchedEdgeDistance);
+        }
+    }
+
+    /*
+     * The endstop edge latched this loop: FPGA timestamp (s) and raw encoder distance. NaN if there wasn't one.
+     */
+    public double getLatchedEdgeTimestamp() {
+        return latchedEdgeTimestamp;
+    }
+
+    public double getLatchedEdgeDistance() {
+        return latchedEdgeDistance;
+    }
+
+    /*
+     * Replay only: stop taking edges from the interrupt (the sim's timing isn't the robot's) and take them from the log.
+     */
+    public void replayEndstopEdges() {
+        replayingEdges = true;
+    }
+
+    /*
+     * Replay only: an edge recorded in the log, applied exactly as if the interrupt had captured it.
+     */
+    public void injectHomingEdge(double timestamp, double distance) {
+        setHomeEdge(timestamp, distance);
+    }
+
+    private void setHomeEdge(double timestamp, double distance) {
+        homeEdgeTimestamp = timestamp;
+        homeEdgeDistance = distance;
+        homeEdgePending = true;
+    }
+
+    /*
+     * Update the height/velocity estimate with this loop's encoder reading and the output applied since the last loop.
+     * Runs every loop (before any commands), so the estimate is current when the controller uses it.
+     */
+    @Override
+    public void periodic() {
+        if (profiler != null) profiler.start(LoopProfiler.Phase.ELEVATOR);
+        if (!HIGH_RATE_CONTROL) {
+            updateEstimator(TimedRobot.kDefaultPeriod);
+        } else {
+            updateLastKnownPosition();
+        }
+        if (profiler != null) profiler.stop(LoopProfiler.Phase.ELEVATOR);
+    }
+
+    public void setProfiler(LoopProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    private void updateEstimator(double dt) {
+        double appliedOutput = DriverStation.isEnabled() ? -m_elevatorLeft.get() : 0.0;
+        estimator.update(appliedOutput, getHeight(), dt);
+        estimatedHeight = estimator.getHeight();
+        estimatedVelocity = estimator.getVelocity();
+    }
+
+    private void resetEstimator(double height) {
+        if (HIGH_RATE_CONTROL) {
+            estimatorReset.set(Double.doubleToRawLongBits(height));
+            return;
+        }
+        applyEstimatorReset(height);
+    }
+
+    private void applyEstimatorReset(double height) {
+        estimator.reset(height);
+        estimatedHeight = height;
+        estimatedVelocity = 0.0;
+    }
+
+    private void resetController() {
+        if (HIGH_RATE_CONTROL) {
+            // The control thread resets it as soon as it sees there's no goal
+            goal.set(null);
+            return;
+        }
+        controller.reset();
+        controlReached = -1;
+    }
+
+    /*
+     * Heights of every preset except UNKNOWN, indexed by ordinal.
+     */
+    public static double[] presetHeights() {
+        double[] heights = new double[Position.UNKNOWN.ordinal()];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = Position.values()[i].height;
+        }
+        return heights;
+    }
+
+    /*
+     * Set the CAN frame periods of the elevator's controllers. Only call during robotInit.
+     */
+    public void configureCanFrames() {
+        // With high-rate control the leader's demand changes every control period, so send it that often
+        int controlPeriodMs = HIGH_RATE_CONTROL
+            ? (int) Math.round(Constants.Elevator.controlPeriodSeconds * 1000.0)
+            : Constants.Can.controlPeriodMs;
+        CanFrames.configure(m_elevatorLeft.getMotor(), CanFrames.Role.LEADER, controlPeriodMs);
+        CanFrames.configure(m_elevatorRight, CanFrames.Role.FOLLOWER);
     }
 
     // -----------------------------------------------------------------------
@@ -63,16 +346,55 @@ public class Elevator {
      * Get the height of the elevator, in steps of 10 centimeters
      */
     public double getHeight() {
-        return s_encoder.getDistance() / COUNTS_PER_1M;
+        return getHeightRaw() / COUNTS_PER_1M;
     }
 
     /*
      * Get the unformatted height of the elevator
      */
     public double getHeightRaw() {
+        return s_encoder.getDistance() - zeroOffset;
+    }
+
+    /*
+     * Get the encoder's own distance, without the homing zero offset applied
+     */
+    public double getEncoderDistance() {
         return s_encoder.getDistance();
     }
 
+    /*
+     * Get the elevator's velocity, in meters per second (positive is up)
+     */
+    public double getVelocity() {
+        return s_encoder.getRate() / COUNTS_PER_1M;
+    }
+
+    /*
+     * Filtered height (m) and velocity (m/s) from the Kalman filter
+     */
+    public double getEstimatedHeight() {
+        return estimatedHeight;
+    }
+
+    public double getEstimatedVelocity() {
+        return estimatedVelocity;
+    }
+
+    /*
+     * Is the elevator at the preset it's ranging towards?
+     * In profiled mode this comes from the profile (the goal has been reached and the elevator has settled within tolerance).
+     */
+    public boolean atGoal() {
+        if (targetPosition == null || targetPosition == Position.UNKNOWN) {
+            return false;
+        }
+        if (Constants.Elevator.useProfiledControl) {
+            return controlReached == targetPosition.ordinal();
+        }
+        return lastKnownPosition == targetPosition;
+    }
+
     /*
      * Get the last known position of the elevator
      */
@@ -91,6 +413,27 @@ public class Elevator {
         }
     }
 
+    /*
+     * Get the position that the elevator is currently attempting to range towards (null if none)
+     */
+    public Position getTarget() {
+        return targetPosition;
+    }
+
+    /*
+     * Get the output last sent to the elevator motors
+     */
+    public double getMotorOutput() {
+        return m_elevatorLeft.get();
+    }
+
+    /*
+     * FPGA timestamp (seconds) of the endstop edge the elevator was last homed on (NaN if never)
+     */
+    public double getLastHomeTimestamp() {
+        return lastHomeTimestamp;
+    }
+
     /*
      * Get the status of the homing endstop
      * (Inverted because it's silly)
@@ -109,8 +452,11 @@ public class Elevator {
      */
     public void reset() {
         s_encoder.reset();
+        zeroOffset = 0.0;
         // lastKnownPosition = Position.UNKNOWN;
         lastKnownPosition = Position.HOME;
+        resetController();
+        resetEstimator(0.0);
     }
 
     // -----------------------------------------------------------------------
@@ -118,24 +464,51 @@ public class Elevator {
     // -----------------------------------------------------------------------
     
     /*
-     * Return to home position, and reset the encoder once reached.
+     * Return to home position, and zero the encoder once reached.
+     * Approaches on the profile, then creeps down the last stretch. The endstop interrupt stops the motor and captures
+     * the encoder at the exact edge, so the zero doesn't depend on which loop first sees the switch.
      */
     public void home() {
         targetPosition = Position.HOME;
-        if (s_endstop.get() && getHeight() > 0.14) {
-            setPosition(targetPosition);
-        
-        } else if (s_endstop.get() && getHeight() < 0.14) {
-            manualShift(-0.13);
-        
-        } else if (!s_endstop.get()) {
+
+        if (homeEdgePending) {
+            applyHome();
             manualShift(0.0);
-            reset();
-        } else {
+
+        } else if (getEndstop()) {
+            // Already on the switch (no edge to capture), so zero where it is
+            if (!homedOnSwitch) {
+                reset();
+                homedOnSwitch = true;
+            }
+            homingArmed = false;
             manualShift(0.0);
+
+        } else {
+            homedOnSwitch = false;
+            homingArmed = true;
+            if (getHeight() > Constants.Elevator.homingSlowHeight) {
+                setPosition(targetPosition);
+            } else {
+                manualShift(Constants.Elevator.homingSlowSpeed);
+            }
         }
     }
 
+    /*
+     * Zero the height at the encoder distance captured by the endstop interrupt.
+     * The elevator has coasted a little past the edge since, so it now reads slightly below zero.
+     */
+    private void applyHome() {
+        homeEdgePending = false;
+        homedOnSwitch = true;
+        zeroOffset = homeEdgeDistance;
+        lastHomeTimestamp = homeEdgeTimestamp;
+        lastKnownPosition = Position.HOME;
+        resetController();
+        resetEstimator(getHeight());
+    }
+
     /*
      * Range to the coral trough. (First position)
      */
@@ -202,25 +575,14 @@ public class Elevator {
      * targetHeight must be type of enumerator Position.
      */
     public void setPosition(Position targetHeight) {
-        if (targetHeight == Position.HOME) {
-            desiredHeight = 0.1;
-        } else if (targetHeight == Position.L1) {
-            desiredHeight = 0.24;
-        }
-        else if (targetHeight == Position.L2) {
-            desiredHeight = 0.21;
+        desiredHeight = targetHeight.height;
+        if (targetHeight != Position.HOME) {
+            homingArmed = false;
         }
-        else if (targetHeight == Position.L3) {
-            desiredHeight = 0.6;
-        }
-        else if (targetHeight == Position.L4) {
-            desiredHeight = 1.23;
-            // 1.23 is MAX
-            
-        } else if (targetHeight == Position.ALGAETOP) {
-            desiredHeight = 0.8;
-        } else if (targetHeight == Position.ALGAEBOTTOM) {
-            desiredHeight = 0.5;
+
+        if (Constants.Elevator.useProfiledControl) {
+            setPositionProfiled(targetHeight);
+            return;
         }
 
         double pidOutput = pid.calculate(getHeight(), desiredHeight);
@@ -246,19 +608,63 @@ public class Elevator {
         manualShift(motorOutput);
     }
 
+    /*
+     * Follow a trapezoidal motion profile to the target, with feedforward along the profile.
+     * With high-rate control this just posts the goal; the control thread does the rest.
+     */
+    private void setPositionProfiled(Position targetHeight) {
+        if (HIGH_RATE_CONTROL) {
+            goal.set(targetHeight);
+            updateLastKnownPosition();
+            return;
+        }
+
+        double motorOutput = calculateProfiled(targetHeight, Timer.getFPGATimestamp());
+        updateLastKnownPosition();
+        manualShift(motorOutput);
+    }
+
+    /*
+     * Run the profiled controller towards targetHeight and publish its state. Call from the thread that owns the controller.
+     */
+    private double calculateProfiled(Position targetHeight, double nowSeconds) {
+        double height = Constants.Elevator.useStateEstimator ? estimator.getHeight() : getHeight();
+        double velocity = Constants.Elevator.useStateEstimator ? estimator.getVelocity() : getVelocity();
+        double motorOutput = controller.calculate(targetHeight.ordinal(), height, velocity, nowSeconds);
+
+        controlReached = controller.atGoal() ? controller.getTarget() : -1;
+        return motorOutput;
+    }
+
+    /*
+     * Take the preset the controller has settled at as the elevator's position. Main thread only:
+     * the control thread just publishes controlReached, and lastKnownPosition is only ever touched here.
+     */
+    private void updateLastKnownPosition() {
+        int reached = controlReached;
+        if (reached >= 0 && reached != Position.HOME.ordinal()) {
+            lastKnownPosition = POSITIONS[reached];
+        }
+    }
+
     /*
      * Shift the elevator manually.
      * Positive speed means up, negative means down.
+     * Takes the elevator back from the high-rate control loop, if it was moving to a goal.
      */
     public void manualShift(double speed) {
-        m_elevatorLeft.set(-speed);
-        m_elevatorRight.set(-speed);
+        synchronized (m_elevatorLeft) {
+            goal.set(null);
+            m_elevatorLeft.set(-speed);
+        }
     }
 
     /*
      * Hold the current elevator position, using gravity compensation.
      */
     public void hold() {
+        homingArmed = false;
+        resetController();
         manualShift(GRAVITY_COMPENSATION);
     }
 
@@ -267,6 +673,5 @@ public class Elevator {
      */
     public void feed() {
         m_elevatorLeft.feed();
-        m_elevatorRight.feed();
     }
 }
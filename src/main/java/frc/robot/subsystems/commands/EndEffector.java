@@ -2,32 +2,86 @@ package frc.robot.subsystems.commands;
 
 import com.ctre.phoenix.motorcontrol.can.WPI_VictorSPX;
 
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.subsystems.tools.CanFrames;
+import frc.robot.subsystems.tools.CoalescingMotor;
 import edu.wpi.first.math.controller.ControlAffinePlantInversionFeedforward;
+import edu.wpi.first.wpilibj.AsynchronousInterrupt;
 import edu.wpi.first.wpilibj.DigitalInput;
 
-public class EndEffector {
-    private WPI_VictorSPX m_intake1;
-    private WPI_VictorSPX m_intake2;
+public class EndEffector extends SubsystemBase {
+    private CoalescingMotor m_intake1;
+    private CoalescingMotor m_intake2;
     private DigitalInput s_break;
+    private AsynchronousInterrupt breakInterrupt;
 
-    private boolean isCoralLoaded;
-    private boolean isCoralPastStage1;
+    // Written by both the main loop and the beam break interrupt (under this object's lock)
+    private volatile boolean isCoralLoaded;
+    private volatile boolean isCoralPastStage1;
 
-    
-    
+    // Set while intakeCoral() is driving the rollers, so the interrupt only acts while intaking
+    private volatile boolean intaking = false;
+
+    // FPGA timestamps (seconds) of the last beam edges: falling = beam broken, rising = beam restored
+    private volatile double lastBrokenTimestamp = Double.NaN;
+    private volatile double lastRestoredTimestamp = Double.NaN;
+
+    private static final double STAGE1_SPEED = 0.5;
+    private static final double STAGE2_SPEED = 0.28;
 
     public EndEffector() {
-        m_intake1 = new WPI_VictorSPX(Constants.EndEffector.m_intake1ID);
-        m_intake2 = new WPI_VictorSPX(Constants.EndEffector.m_intake2ID);
+        m_intake1 = new CoalescingMotor(new WPI_VictorSPX(Constants.EndEffector.m_intake1ID));
+        m_intake2 = new CoalescingMotor(new WPI_VictorSPX(Constants.EndEffector.m_intake2ID));
 
         s_break = new DigitalInput(Constants.EndEffector.s_breakID);
         
 
         isCoralLoaded = false;
         isCoralPastStage1 = false;
+
+        if (Constants.EndEffector.useBeamBreakInterrupt) {
+            breakInterrupt = new AsynchronousInterrupt(s_break, this::onBeamEdge);
+            breakInterrupt.setInterruptEdges(true, true);
+            breakInterrupt.enable();
+        }
+    }
+
+    /*
+     * Runs on the interrupt thread on each beam break edge.
+     * Advances the intake the moment the coral reaches each stage, rather than on the next loop:
+     * broken while unstaged -> partly staged (slow down), restored while partly staged -> staged (stop).
+     */
+    private synchronized void onBeamEdge(boolean rising, boolean falling) {
+        if (falling) {
+            lastBrokenTimestamp = breakInterrupt.getFallingTimestamp();
+        }
+        if (rising) {
+            lastRestoredTimestamp = breakInterrupt.getRisingTimestamp();
+        }
+        if (!intaking || isCoralLoaded) {
+            return;
+        }
+
+        if (falling && !isCoralPastStage1) {
+            isCoralPastStage1 = true;
+            setOutput(STAGE2_SPEED);
+        }
+        if (rising && isCoralPastStage1) {
+            isCoralLoaded = true;
+            intaking = false;
+            setOutput(0.0);
+        }
     }
     
+    /*
+     * Set the CAN frame periods of the intake controllers. Only call during robotInit.
+     */
+    public void configureCanFrames() {
+        CanFrames.configure(m_intake1.getMotor(), CanFrames.Role.OPEN_LOOP);
+        CanFrames.configure(m_intake2.getMotor(), CanFrames.Role.OPEN_LOOP);
+    }
+
     public boolean getEndstop() {
         return s_break.get();
     }
@@ -36,6 +90,17 @@ public class EndEffector {
         return isCoralLoaded;
     }
 
+    /*
+     * FPGA timestamps (seconds) of the last time the beam was broken / restored (NaN until seen, or without the interrupt)
+     */
+    public double getLastBrokenTimestamp() {
+        return lastBrokenTimestamp;
+    }
+
+    public double getLastRestoredTimestamp() {
+        return lastRestoredTimestamp;
+    }
+
     public String getCoralState() {
         if (isCoralPastStage1 == true && isCoralLoaded == false) {
             return "Partly Staged";
@@ -46,21 +111,48 @@ public class EndEffector {
         }
     }
 
-    public void intakeCoral() {
+    /*
+     * Get the coral state as a number, matching debugState: 0 = unloaded, 1 = partly staged, 2 = staged
+     */
+    public int getCoralStateId() {
+        if (isCoralLoaded) {
+            return 2;
+        } else if (isCoralPastStage1) {
+            return 1;
+        } else {
+            return 0;
+        }
+    }
+
+    public double getIntake1Output() {
+        return m_intake1.get();
+    }
+
+    public double getIntake2Output() {
+        return m_intake2.get();
+    }
+
+    /*
+     * Polled every loop while intaking. With the interrupt enabled, the edges normally advance the state first
+     * and this just keeps the rollers at the right speed (and catches any edge that was missed).
+     */
+    public synchronized void intakeCoral() {
         // Only intake if the coral is not loaded (persists)
         if (!isCoralLoaded) {
+            intaking = true;
             if (isCoralPastStage1 == true && isCoralLoaded == false) {
                 if (!s_break.get()) {
-                    manualShift(0.28);
+                    setOutput(STAGE2_SPEED);
                 } else {
                     isCoralLoaded = true;
-                    manualShift(0.0);
+                    intaking = false;
+                    setOutput(0.0);
                 }
 
             } else if (isCoralLoaded == false && isCoralPastStage1 == false) {
                 // If the endstop isn't broken....
                 if (s_break.get()) {
-                    manualShift(0.5);
+                    setOutput(STAGE1_SPEED);
                     isCoralPastStage1 = false;
                 } else {
                     isCoralPastStage1 = true;
@@ -68,30 +160,38 @@ public class EndEffector {
             }
             
         } else {
-            manualShift(0.0);
+            intaking = false;
+            setOutput(0.0);
         }
     }
 
-    public void releaseCoral() {
+    public synchronized void releaseCoral() {
         // If no coral is loaded to release, intake coral.
             manualShift(0.4);
             isCoralLoaded = false;
             isCoralPastStage1 = false;
     }
 
-    public void manualShift(double speed) {
+    public synchronized void manualShift(double speed) {
+        intaking = false;
+        setOutput(speed);
+    }
+
+    private void setOutput(double speed) {
         m_intake1.set(-speed);
         m_intake2.set(speed);
     }
 
-    public void releaseL1Coral() {
+    public synchronized void releaseL1Coral() {
+        intaking = false;
         isCoralLoaded = false;
         isCoralPastStage1 = false;
         m_intake1.set(-0.8);
         m_intake2.set(-0.35);
     }
 
-    public void stop() {
+    public synchronized void stop() {
+        intaking = false;
         m_intake1.set(0.0);
         m_intake2.set(0.0);
     }
@@ -103,7 +203,7 @@ public class EndEffector {
      * state 1 = partly staged
      * state 2 = staged
      */
-    public void debugState(int state) {
+    public synchronized void debugState(int state) {
         if (state == 0) {
             isCoralLoaded = false;
             isCoralPastStage1 = false;
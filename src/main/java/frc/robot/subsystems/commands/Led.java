@@ -13,9 +13,10 @@ import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.LEDPattern.GradientType;
 import edu.wpi.first.wpilibj.util.Color;
 
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 
-public class Led {
+public class Led extends SubsystemBase {
     private Timer flashTimer;
     private boolean isFlashing;
     private int flashCount;
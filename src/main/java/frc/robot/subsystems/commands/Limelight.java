@@ -1,7 +1,11 @@
 package frc.robot.subsystems.commands;
+import frc.robot.Constants;
 import frc.robot.LimelightHelpers;
+import frc.robot.subsystems.tools.AimController;
+import frc.robot.subsystems.tools.LimelightHandle;
+import frc.robot.subsystems.tools.LimelightResultsWorker;
+import frc.robot.subsystems.tools.LimelightSampleBuffer;
 import frc.robot.subsystems.tools.MapRanges;
-import frc.robot.subsystems.commands.DriveSubsystem;
 
 public class Limelight {
     private double limelightTA;
@@ -10,23 +14,122 @@ public class Limelight {
 
     MapRanges mapRanges = new MapRanges();
 
-    private String Limelight = "limelight";
+    private final LimelightHandle limelightHandle = new LimelightHandle(Constants.Limelight.name);
+    private LimelightSampleBuffer limelightSamples;
 
-    public Limelight() {}
+    private final AimController aimController = new AimController();
 
+    private LimelightResultsWorker resultsWorker;
+    // Without the worker, getLatestResults() decodes on the caller's thread into this decoder's one buffer
+    private final LimelightHelpers.ResultsDecoder resultsDecoder = new LimelightHelpers.ResultsDecoder();
+
+    public Limelight() {
+        if (Constants.Limelight.recordSamples) {
+            limelightSamples = new LimelightSampleBuffer(Constants.Limelight.name, Constants.Limelight.sampleBufferSize);
+        }
+        if (Constants.Limelight.asyncResults) {
+            resultsWorker = new LimelightResultsWorker(Constants.Limelight.name);
+            resultsWorker.start();
+        }
+    }
+
+    /*
+     * Snapshot the Limelight's values for this loop.
+     * Must run before anything else reads from the Limelight in the loop.
+     */
     public void periodic() {
-        limelightTA = LimelightHelpers.getTA(Limelight);
-        limelightTX = LimelightHelpers.getTX(Limelight);
-        limelightTY = LimelightHelpers.getTY(Limelight);
+        limelightHandle.refresh();
+        limelightTA = limelightHandle.getTA();
+        limelightTX = limelightHandle.getTX();
+        limelightTY = limelightHandle.getTY();
+        if (resultsWorker != null) {
+            resultsWorker.update();
+        }
+    }
+
+    public double getTX() {
+        return limelightTX;
+    }
+
+    public double getTY() {
+        return limelightTY;
+    }
+
+    public double getTA() {
+        return limelightTA;
+    }
+
+    public LimelightHandle getHandle() {
+        return limelightHandle;
+    }
+
+    /*
+     * Latency correction for aiming. Whatever tracks the robot's heading records it here every loop.
+     */
+    public AimController getAimController() {
+        return aimController;
+    }
+
+    /*
+     * FPGA time the newest frame was captured: when it reached NetworkTables, less the pipeline and capture latency.
+     */
+    public double getCaptureTimestamp() {
+        return limelightHandle.getFrameTimestampMicros() / 1e6
+            - (limelightHandle.getLatencyPipeline() + limelightHandle.getLatencyCapture()) / 1000.0;
+    }
+
+    /*
+     * Every frame the Limelight has published recently, captured as it arrived and timestamped.
+     * null unless Constants.Limelight.recordSamples is on.
+     */
+    public LimelightSampleBuffer getSamples() {
+        return limelightSamples;
+    }
+
+    /*
+     * Get the newest parsed JSON results.
+     * With asyncResults on, this is what the background worker had parsed when this loop started (null until the first
+     * parse). Otherwise the JSON is parsed here, on the caller's thread.
+     * Either way the results are reused: don't hold on to them past this loop (or the next call, when synchronous).
+     */
+    public LimelightHelpers.LimelightResults getLatestResults() {
+        if (resultsWorker == null) {
+            return resultsDecoder.decode(LimelightHelpers.getJSONDump(Constants.Limelight.name));
+        }
+        LimelightResultsWorker.Snapshot snapshot = resultsWorker.getLatest();
+        return snapshot == null ? null : snapshot.results;
+    }
+
+    /*
+     * Age of the results returned by getLatestResults(), in seconds. 0 when parsing synchronously.
+     */
+    public double getLatestResultsAge() {
+        if (resultsWorker == null) {
+            return 0.0;
+        }
+        LimelightResultsWorker.Snapshot snapshot = resultsWorker.getLatest();
+        return snapshot == null ? Double.POSITIVE_INFINITY : snapshot.getAgeSeconds();
     }
 
     public double getAimMotorOutput(double multiplier) {    
-        // control the intensity of the robots movements: too high = oscilate, too low = not enough power to move
-        double kP = 0.42;
+        // Only correct a real target, from a frame the heading history still covers (otherwise aim as before)
+        if (Constants.Limelight.latencyCompensatedAim && limelightHandle.getTV()
+                && aimController.covers(getCaptureTimestamp())) {
+            double correctedTX = aimController.getCorrectedTX(limelightTX, getCaptureTimestamp());
+            return aimOutput(correctedTX, Constants.Limelight.compensatedAimKp, multiplier);
+        }
+        return aimOutput(limelightTX, Constants.Limelight.aimKp, multiplier);
+    }
 
-        double targetingAngleUnmapped = (LimelightHelpers.getTX("limelight")) * kP * multiplier;
+    /*
+     * The aiming control law on its own (no Limelight needed), so it can be tuned offline.
+     */
+    public static double aimOutput(double tx, double kP, double multiplier) {
+        // kP controls the intensity of the robots movements: too high = oscilate, too low = not enough power to move
+        double targetingAngleUnmapped = tx * kP * multiplier;
 
-        double targetDesiredRotationSpeed = 10*mapRanges.MapTX(targetingAngleUnmapped);
+        // Map from the Limelight's -31 to 31 degree range to motor output
+        double targetDesiredRotationSpeed = 10*MapRanges.map(targetingAngleUnmapped, -31, 31, -1, 1);
 
         //invert since tx is positive when the target is to the right of the crosshair
         // targetDesiredRotationSpeed *= -1.0;
@@ -0,0 +1,149 @@
+package frc.robot.subsystems.commands;
+
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.estimator.DifferentialDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.DifferentialDriveKinematics;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StructPublisher;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants;
+import frc.robot.LimelightHelpers;
+import frc.robot.subsystems.tools.AimController;
+import frc.robot.subsystems.tools.LimelightHandle;
+import frc.robot.subsystems.tools.LoopProfiler;
+import frc.robot.subsystems.tools.VisionFilter;
+
+/**
+ * The robot's pose on the field (blue origin), from drive odometry fused with Limelight poses.
+ *
+ * The drive has no encoders or gyro, so odometry is dead reckoned from the outputs sent to each side
+ * (scaled by the drive's estimated top speed), and the odometry heading comes from the difference between the sides.
+ * It drifts; the vision measurements are what keep it on the field.
+ *
+ * Each vision pose is applied at the time its frame was captured (NT arrival minus the Limelight's reported latency).
+ * DifferentialDrivePoseEstimator keeps its odometry history in a TimeInterpolatableBuffer bounded to the last 1.5 s,
+ * so memory stays constant over a match and finding the pose at a capture time is a TreeMap lookup, not a scan.
+ * Frames go through a VisionFilter first, which drops bad ones and sets how much each of the rest is trusted.
+ */
+public class PoseEstimator extends SubsystemBase {
+    private final DriveSubsystem driveSubsystem;
+    private final LimelightHandle limelightHandle;
+    private final AimController aimController;
+    private final DifferentialDrivePoseEstimator estimator;
+    private final LimelightHelpers.PoseEstimateBuffer[] visionFrames = new LimelightHelpers.PoseEstimateBuffer[LimelightHandle.POSE_QUEUE_DEPTH];
+    private final VisionFilter visionFilter = new VisionFilter(Constants.PoseEstimation.maxVisionBatch);
+
+    private final StructPublisher<Pose2d> networkPose;
+    private final IntegerPublisher networkVisionApplied;
+
+    private double leftDistance = 0.0;
+    private double rightDistance = 0.0;
+    private double lastTimestamp = Double.NaN;
+    private long visionApplied = 0;
+    // Times periodic() under its own phase, once Robot has handed it over
+    private LoopProfiler profiler;
+
+    public PoseEstimator(DriveSubsystem driveSubsystem, Limelight limelight) {
+        this.driveSubsystem = driveSubsystem;
+        this.limelightHandle = limelight.getHandle();
+        this.aimController = limelight.getAimController();
+
+        double visionStdDevHeading = Constants.PoseEstimation.useMegaTag2
+            ? Constants.PoseEstimation.megaTag2StdDevHeading
+            : Constants.PoseEstimation.visionStdDevHeading;
+        estimator = new DifferentialDrivePoseEstimator(
+            new DifferentialDriveKinematics(Constants.Drive.trackWidthMeters),
+            Rotation2d.kZero, 0.0, 0.0, Pose2d.kZero,
+            VecBuilder.fill(Constants.PoseEstimation.odometryStdDevXY, Constants.PoseEstimation.odometryStdDevXY, Constants.PoseEstimation.odometryStdDevHeading),
+            VecBuilder.fill(Constants.PoseEstimation.visionStdDevXY, Constants.PoseEstimation.visionStdDevXY, visionStdDevHeading));
+
+        for (int i = 0; i < visionFrames.length; i++) {
+            visionFrames[i] = new LimelightHelpers.PoseEstimateBuffer();
+        }
+
+        NetworkTable poseTable = NetworkTableInstance.getDefault().getTable("Pose");
+        networkPose = poseTable.getStructTopic("Estimated Pose", Pose2d.struct).publish();
+        networkVisionApplied = poseTable.getIntegerTopic("Vision Measurements Applied").publish();
+    }
+
+    /*
+     * Advance the odometry with the drive outputs since the last loop, then fold in every vision pose since the last loop.
+     */
+    @Override
+    public void periodic() {
+        if (profiler != null) profiler.start(LoopProfiler.Phase.POSE_ESTIMATOR);
+        double now = Timer.getFPGATimestamp();
+        double dt = Double.isNaN(lastTimestamp) ? 0.0 : now - lastTimestamp;
+        lastTimestamp = now;
+
+        // Each side has been running at the output it was last sent, since the last loop
+        leftDistance += driveSubsystem.getLeftOutput() * Constants.Drive.maxWheelSpeedMetersPerSecond * dt;
+        rightDistance += driveSubsystem.getRightOutput() * Constants.Drive.maxWheelSpeedMetersPerSecond * dt;
+        Rotation2d odometryHeading = getOdometryHeading();
+        estimator.updateWithTime(now, odometryHeading, leftDistance, rightDistance);
+        // The odometry heading is smooth (vision corrections never jump it), which is what aiming needs
+        aimController.recordHeading(now, odometryHeading);
+
+        addVisionMeasurements(now);
+
+        networkPose.set(getPose());
+        networkVisionApplied.set(visionApplied);
+        if (profiler != null) profiler.stop(LoopProfiler.Phase.POSE_ESTIMATOR);
+    }
+
+    public void setProfiler(LoopProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /*
+     * Offer every Limelight frame published since the last loop to the filter, then apply everything it accepted.
+     * The Limelight runs faster than the loop, so there's usually more than one.
+     */
+    private void addVisionMeasurements(double now) {
+        if (Constants.PoseEstimation.useMegaTag2) {
+            // MegaTag2 solves for position with the heading we give it
+            LimelightHelpers.SetRobotOrientation_NoFlush(limelightHandle.getName(), getPose().getRotation().getDegrees(), 0.0, 0.0, 0.0, 0.0, 0.0);
+        }
+        int frames = limelightHandle.readBotPoseQueue(Constants.PoseEstimation.useMegaTag2, visionFrames);
+        for (int i = 0; i < frames; i++) {
+            visionFilter.offer(visionFrames[i], now);
+        }
+
+        for (int i = 0; i < visionFilter.getBatchSize(); i++) {
+            VisionFilter.Measurement measurement = visionFilter.getMeasurement(i);
+            estimator.addVisionMeasurement(
+                new Pose2d(measurement.x, measurement.y, Rotation2d.fromDegrees(measurement.yawDegrees)),
+                measurement.timestampSeconds,
+                VecBuilder.fill(measurement.stdDevXY, measurement.stdDevXY, measurement.stdDevHeading));
+            visionApplied++;
+        }
+        visionFilter.clear();
+        visionFilter.publish();
+    }
+
+    /*
+     * Heading from the difference in distance travelled by each side (counter-clockwise positive)
+     */
+    private Rotation2d getOdometryHeading() {
+        return new Rotation2d((rightDistance - leftDistance) / Constants.Drive.trackWidthMeters);
+    }
+
+    /*
+     * The estimated pose on the field, in meters (blue alliance origin).
+     */
+    public Pose2d getPose() {
+        return estimator.getEstimatedPosition();
+    }
+
+    /*
+     * Move the estimate to a known pose (e.g. the start of an auto), keeping the odometry running.
+     */
+    public void resetPose(Pose2d pose) {
+        estimator.resetPosition(getOdometryHeading(), leftDistance, rightDistance, pose);
+    }
+}
@@ -0,0 +1,55 @@
+package frc.robot.subsystems.tools;
+
+import java.util.Map;
+import java.util.Optional;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.interpolation.TimeInterpolatableBuffer;
+import frc.robot.Constants;
+
+/**
+ * Corrects the Limelight's tx for the time it took to reach us.
+ * A frame's tx is the bearing to the target when the frame was captured, which is pipeline + capture latency
+ * (plus NT transport) before we read it; if the robot has turned since, the target is no longer where tx says.
+ * Headings are recorded every loop into a time-bounded history, and tx is moved on by however far the robot
+ * has turned between the frame's capture time and now.
+ */
+public class AimController {
+    private final TimeInterpolatableBuffer<Rotation2d> headingHistory =
+        TimeInterpolatableBuffer.createBuffer(Constants.Limelight.headingHistorySeconds);
+
+    /*
+     * Record the robot's heading (counter-clockwise positive) at an FPGA time. Call every loop.
+     */
+    public void recordHeading(double timestampSeconds, Rotation2d heading) {
+        headingHistory.addSample(timestampSeconds, heading);
+    }
+
+    /*
+     * Does the heading history reach back to this capture time? (A stale frame is older than the whole history.)
+     */
+    public boolean covers(double captureTimestampSeconds) {
+        Map.Entry<Double, Rotation2d> oldest = headingHistory.getInternalBuffer().firstEntry();
+        return oldest != null && captureTimestampSeconds >= oldest.getKey();
+    }
+
+    /*
+     * tx (degrees, positive right) as it would read now, for a frame captured at captureTimestampSeconds.
+     * Returns tx unchanged if the heading history doesn't cover the frame.
+     */
+    public double getCorrectedTX(double tx, double captureTimestampSeconds) {
+        Map.Entry<Double, Rotation2d> latest = headingHistory.getInternalBuffer().lastEntry();
+        Optional<Rotation2d> headingAtCapture = headingHistory.getSample(captureTimestampSeconds);
+        if (latest == null || !covers(captureTimestampSeconds) || headingAtCapture.isEmpty()) {
+            return tx;
+        }
+        return backProject(tx, latest.getValue().minus(headingAtCapture.get()).getDegrees());
+    }
+
+    /*
+     * Turning left (counter-clockwise) by rotationSinceCaptureDegrees moves a target that much further right.
+     */
+    public static double backProject(double tx, double rotationSinceCaptureDegrees) {
+        return tx + rotationSinceCaptureDegrees;
+    }
+}
@@ -0,0 +1,66 @@
+package frc.robot.subsystems.tools;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.ControlFrame;
+import com.ctre.phoenix.motorcontrol.StatusFrame;
+import com.ctre.phoenix.motorcontrol.can.WPI_VictorSPX;
+
+import frc.robot.Constants;
+
+/**
+ * CAN frame periods for the VictorSPX controllers, by what each one is used for.
+ * None of our feedback comes from the controllers (the elevator encoder is on the roboRIO), so the only status
+ * frame anything needs is a leader's General frame, which its followers use to follow it. Everything else is slowed
+ * right down to free up bus bandwidth.
+ */
+public final class CanFrames {
+    public enum Role {
+        // Has followers: keeps General at full rate so they track it closely
+        LEADER,
+        // Follows a leader: nothing reads its status
+        FOLLOWER,
+        // Driven directly with no followers and no feedback read
+        OPEN_LOOP
+    }
+
+    private static final StatusFrame[] UNUSED_FRAMES = {
+        StatusFrame.Status_2_Feedback0,
+        StatusFrame.Status_4_AinTempVbat,
+        StatusFrame.Status_10_Targets,
+        StatusFrame.Status_12_Feedback1,
+        StatusFrame.Status_13_Base_PIDF0,
+        StatusFrame.Status_14_Turn_PIDF1,
+        StatusFrame.Status_15_FirmwareApiStatus,
+    };
+
+    private CanFrames() {}
+
+    /*
+     * Set a controller's status and control frame periods for its role.
+     * Blocks for up to Constants.Can.configTimeoutMs per frame, so only call it during robotInit.
+     */
+    public static void configure(WPI_VictorSPX motor, Role role) {
+        configure(motor, role, Constants.Can.controlPeriodMs);
+    }
+
+    /*
+     * As above, for a controller whose demands are written faster than once a loop (controlPeriodMs apart).
+     */
+    public static void configure(WPI_VictorSPX motor, Role role, int controlPeriodMs) {
+        int generalPeriod = role == Role.LEADER ? Constants.Can.leaderGeneralPeriodMs : Constants.Can.unusedStatusPeriodMs;
+        check(motor, "Status_1_General", motor.setStatusFramePeriod(StatusFrame.Status_1_General, generalPeriod, Constants.Can.configTimeoutMs));
+
+        for (StatusFrame frame : UNUSED_FRAMES) {
+            check(motor, frame.name(), motor.setStatusFramePeriod(frame, Constants.Can.unusedStatusPeriodMs, Constants.Can.configTimeoutMs));
+        }
+
+        // Demands change at most once per control period, so there's no point sending them more often than that
+        check(motor, "Control_3_General", motor.setControlFramePeriod(ControlFrame.Control_3_General, controlPeriodMs));
+    }
+
+    private static void check(WPI_VictorSPX motor, String frame, ErrorCode error) {
+        if (error != ErrorCode.OK) {
+            System.out.println("Failed to set " + frame + " period on VictorSPX " + motor.getDeviceID() + ": " + error);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package frc.robot.subsystems.tools;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ctre.phoenix.motorcontrol.can.WPI_VictorSPX;
+
+import frc.robot.Constants;
+
+/**
+ * Output wrapper for a leader WPI_VictorSPX that only sends a new demand when it has actually changed.
+ * A set() within epsilon of the last value sent is skipped (the controller keeps running the last demand),
+ * but the motor is still fed so MotorSafety doesn't trip.
+ * Followers should never be wrapped or written to; they track their leader on their own.
+ *
+ * Counts of writes passed on to the motor and skipped are kept across every motor. These count set() calls, not CAN
+ * frames: the controller sends its control frame on its own period whether or not the demand changed.
+ *
+ * set() and invalidate() are synchronized, so an interrupt handler can stop the motor while the main loop is driving it.
+ */
+public class CoalescingMotor {
+    private static final AtomicLong writes = new AtomicLong();
+    private static final AtomicLong skippedWrites = new AtomicLong();
+
+    private final WPI_VictorSPX motor;
+    private final double epsilon;
+    private double lastSent = Double.NaN;
+
+    public CoalescingMotor(WPI_VictorSPX motor) {
+        this(motor, Constants.Can.outputEpsilon);
+    }
+
+    public CoalescingMotor(WPI_VictorSPX motor, double epsilon) {
+        this.motor = motor;
+        this.epsilon = epsilon;
+    }
+
+    /*
+     * Set the motor's percent output, unless it's already (within epsilon) running that.
+     * An exact 0.0 is always sent if the motor isn't already at exactly 0.0, so stops are never swallowed.
+     */
+    public synchronized void set(double speed) {
+        boolean unchanged = speed == 0.0 ? lastSent == 0.0 : Math.abs(speed - lastSent) < epsilon;
+        if (unchanged) {
+            motor.feed();
+            skippedWrites.incrementAndGet();
+            return;
+        }
+        motor.set(speed);
+        lastSent = speed;
+        writes.incrementAndGet();
+    }
+
+    /*
+     * The last output sent to the motor.
+     */
+    public double get() {
+        return motor.get();
+    }
+
+    public void feed() {
+        motor.feed();
+    }
+
+    /*
+     * Forget the last value sent, so the next set() always goes out (e.g. after the controller has been reset).
+     */
+    public synchronized void invalidate() {
+        lastSent = Double.NaN;
+    }
+
+    /*
+     * The wrapped motor, for configuration (inversion, following, safety). Don't set() it directly.
+     */
+    public WPI_VictorSPX getMotor() {
+        return motor;
+    }
+
+    public static long getWrites() {
+        return writes.get();
+    }
+
+    public static long getSkippedWrites() {
+        return skippedWrites.get();
+    }
+}
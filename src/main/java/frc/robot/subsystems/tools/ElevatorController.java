@@ -0,0 +1,158 @@
+package frc.robot.subsystems.tools;
+
+import edu.wpi.first.math.controller.ElevatorFeedforward;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import frc.robot.Constants;
+
+/**
+ * The elevator's profiled control law, as pure math: no hardware, no HAL, no clock of its own.
+ * Feed it the measured height and velocity and the current time; it returns the percent output to send (positive is up).
+ *
+ * Moves that start at rest on a preset replay that pair's cached profile (see ElevatorProfileCache);
+ * anything else (e.g. after manual control) is profiled on-line from wherever the elevator is.
+ * Presets are identified by index into the presetHeights array.
+ * The controller is meant to be called once per period of the profile cache (its PID and feedforward use that period).
+ */
+public class ElevatorController {
+    private final double[] presetHeights;
+    private final ElevatorProfileCache profileCache;
+    private final ProfiledPIDController profiledPid;
+    private final PIDController setpointPid;
+    private final double kd;
+    private final ElevatorFeedforward feedforward;
+    private final TrapezoidProfile.State cachedSetpoint = new TrapezoidProfile.State();
+
+    // The preset being moved to (-1 when the next calculate() starts a new move)
+    private int target = -1;
+    // The preset a cached move started from (-1 when following the on-line profile instead)
+    private int cachedFrom = -1;
+    private double moveStartSeconds;
+    private double lastSetpointVelocity;
+    private double setpointPosition;
+    private boolean goalReached;
+
+    /*
+     * The controller the robot runs, with the gains from Constants.
+     */
+    public ElevatorController(double[] presetHeights, ElevatorProfileCache profileCache) {
+        this(presetHeights, profileCache, Constants.Elevator.profiledKp, Constants.Elevator.profiledKi, Constants.Elevator.profiledKd);
+    }
+
+    /*
+     * A controller with different feedback gains (for tuning). The profile cache is only read, so one can be shared.
+     */
+    public ElevatorController(double[] presetHeights, ElevatorProfileCache profileCache, double kp, double ki, double kd) {
+        this.presetHeights = presetHeights;
+        this.profileCache = profileCache;
+
+        // The profile limits velocity and acceleration, the feedforward does most of the work,
+        // and the PID only corrects the error from the profile's setpoint.
+        // The D term acts on the velocity error directly (using the measured or estimated velocity)
+        // rather than differentiating the position error, so the PID controllers only get kp and ki.
+        this.kd = kd;
+        double period = profileCache.getPeriod();
+        profiledPid = new ProfiledPIDController(kp, ki, 0.0, createConstraints(), period);
+        profiledPid.setTolerance(Constants.Elevator.goalPositionTolerance, Constants.Elevator.goalVelocityTolerance);
+        setpointPid = new PIDController(kp, ki, 0.0, period);
+        feedforward = new ElevatorFeedforward(Constants.Elevator.kS, Constants.Elevator.kG, Constants.Elevator.kV, Constants.Elevator.kA, period);
+    }
+
+    public static TrapezoidProfile.Constraints createConstraints() {
+        return new TrapezoidProfile.Constraints(Constants.Elevator.maxVelocity, Constants.Elevator.maxAcceleration);
+    }
+
+    /*
+     * Forget the current move; the next calculate() starts a new one from wherever the elevator is.
+     */
+    public void reset() {
+        target = -1;
+        goalReached = false;
+    }
+
+    /*
+     * Output (percent, positive up) to move towards the preset at index targetPreset.
+     */
+    public double calculate(int targetPreset, double height, double velocity, double nowSeconds) {
+        double goal = presetHeights[targetPreset];
+
+        // Starting a new move (or resuming after manual control)
+        if (target != targetPreset) {
+            cachedFrom = restingPreset(height, velocity);
+            if (cachedFrom >= 0) {
+                moveStartSeconds = nowSeconds;
+                setpointPid.reset();
+                lastSetpointVelocity = 0.0;
+            } else {
+                profiledPid.reset(height, velocity);
+                lastSetpointVelocity = velocity;
+            }
+            target = targetPreset;
+        }
+
+        double pidOutput;
+        double setpointVelocity;
+        if (cachedFrom >= 0) {
+            double t = nowSeconds - moveStartSeconds;
+            profileCache.sample(cachedFrom, targetPreset, t, cachedSetpoint);
+            pidOutput = setpointPid.calculate(height, cachedSetpoint.position);
+            setpointPosition = cachedSetpoint.position;
+            setpointVelocity = cachedSetpoint.velocity;
+            goalReached = t >= profileCache.getDuration(cachedFrom, targetPreset)
+                && Math.abs(height - goal) <= Constants.Elevator.goalPositionTolerance
+                && Math.abs(velocity) <= Constants.Elevator.goalVelocityTolerance;
+        } else {
+            pidOutput = profiledPid.calculate(height, goal);
+            setpointPosition = profiledPid.getSetpoint().position;
+            setpointVelocity = profiledPid.getSetpoint().velocity;
+            goalReached = profiledPid.atGoal();
+        }
+
+        pidOutput += kd * (setpointVelocity - velocity);
+        double feedforwardOutput = feedforward.calculateWithVelocities(lastSetpointVelocity, setpointVelocity);
+        lastSetpointVelocity = setpointVelocity;
+
+        return Math.max(Constants.Elevator.maxSpeedDown, Math.min(pidOutput + feedforwardOutput, Constants.Elevator.maxSpeedUp));
+    }
+
+    /*
+     * The preset being moved to, or -1.
+     */
+    public int getTarget() {
+        return target;
+    }
+
+    /*
+     * Has the current move reached its goal and settled there?
+     */
+    public boolean atGoal() {
+        return target >= 0 && goalReached;
+    }
+
+    /*
+     * Where the profile wants the elevator to be right now, in meters.
+     */
+    public double getSetpointPosition() {
+        return setpointPosition;
+    }
+
+    public double getSetpointVelocity() {
+        return lastSetpointVelocity;
+    }
+
+    /*
+     * Index of the preset the elevator is resting at, or -1 if it's moving or between presets.
+     */
+    private int restingPreset(double height, double velocity) {
+        if (Math.abs(velocity) > Constants.Elevator.presetMatchVelocity) {
+            return -1;
+        }
+        for (int i = 0; i < presetHeights.length; i++) {
+            if (Math.abs(height - presetHeights[i]) <= Constants.Elevator.presetMatchTolerance) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
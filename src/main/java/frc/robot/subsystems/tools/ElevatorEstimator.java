@@ -0,0 +1,61 @@
+package frc.robot.subsystems.tools;
+
+import edu.wpi.first.math.MatBuilder;
+import edu.wpi.first.math.Nat;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.estimator.KalmanFilter;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N2;
+import edu.wpi.first.math.system.LinearSystem;
+import frc.robot.Constants;
+
+/**
+ * Kalman filter for the elevator's height and velocity.
+ * The model is the same one the feedforward assumes (x' = v, v' = -kV/kA v + 1/kA u, in volts), with gravity taken
+ * out of the input using kG. It's corrected each update by the encoder height, so the velocity comes from the model
+ * and the applied output rather than from differentiating encoder counts.
+ */
+public class ElevatorEstimator {
+    private final KalmanFilter<N2, N1, N1> filter;
+
+    public ElevatorEstimator(double dtSeconds) {
+        // Feedforward gains are in percent output, the model works in volts
+        double kV = Constants.Elevator.kV * 12.0;
+        double kA = Constants.Elevator.kA * 12.0;
+        LinearSystem<N2, N1, N1> plant = new LinearSystem<>(
+            MatBuilder.fill(Nat.N2(), Nat.N2(), 0.0, 1.0, 0.0, -kV / kA),
+            MatBuilder.fill(Nat.N2(), Nat.N1(), 0.0, 1.0 / kA),
+            MatBuilder.fill(Nat.N1(), Nat.N2(), 1.0, 0.0),
+            MatBuilder.fill(Nat.N1(), Nat.N1(), 0.0));
+
+        filter = new KalmanFilter<>(Nat.N2(), Nat.N1(), plant,
+            VecBuilder.fill(Constants.Elevator.estimatorPositionStdDev, Constants.Elevator.estimatorVelocityStdDev),
+            VecBuilder.fill(Constants.Elevator.estimatorEncoderStdDev),
+            dtSeconds);
+    }
+
+    /*
+     * Advance by dt with the output (percent, positive up) that was applied over it, then correct with the measured height.
+     */
+    public void update(double appliedOutput, double measuredHeight, double dtSeconds) {
+        var input = VecBuilder.fill((appliedOutput - Constants.Elevator.kG) * 12.0);
+        filter.predict(input, dtSeconds);
+        filter.correct(input, VecBuilder.fill(measuredHeight));
+    }
+
+    /*
+     * Start again from a known height, at rest (e.g. when the encoder is zeroed).
+     */
+    public void reset(double height) {
+        filter.reset();
+        filter.setXhat(VecBuilder.fill(height, 0.0));
+    }
+
+    public double getHeight() {
+        return filter.getXhat(0);
+    }
+
+    public double getVelocity() {
+        return filter.getXhat(1);
+    }
+}
@@ -0,0 +1,106 @@
+package frc.robot.subsystems.tools;
+
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+
+/**
+ * Trapezoidal profiles for every move between two elevator presets, computed once at startup.
+ * Each profile is sampled every dt seconds from rest at one preset to rest at the other, and all of them are
+ * packed into two flat float arrays (positions and velocities), indexed by an offset per (from, to) pair.
+ * sample() interpolates between the stored points, so following a cached move costs an array lookup per loop
+ * instead of solving the profile again.
+ */
+public class ElevatorProfileCache {
+    private final int presetCount;
+    private final double dt;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final float[] positions;
+    private final float[] velocities;
+
+    /*
+     * presetHeights are in meters, indexed the same way as the from/to arguments of the other methods.
+     */
+    public ElevatorProfileCache(double[] presetHeights, TrapezoidProfile.Constraints constraints, double dt) {
+        this.presetCount = presetHeights.length;
+        this.dt = dt;
+        this.offsets = new int[presetCount * presetCount];
+        this.lengths = new int[presetCount * presetCount];
+
+        TrapezoidProfile profile = new TrapezoidProfile(constraints);
+
+        // First pass: how many samples each move needs
+        int total = 0;
+        for (int from = 0; from < presetCount; from++) {
+            for (int to = 0; to < presetCount; to++) {
+                TrapezoidProfile.State start = new TrapezoidProfile.State(presetHeights[from], 0.0);
+                TrapezoidProfile.State goal = new TrapezoidProfile.State(presetHeights[to], 0.0);
+                profile.calculate(0.0, start, goal);
+                int pair = from * presetCount + to;
+                // One sample per dt up to the end of the move, plus the goal itself
+                lengths[pair] = (int) Math.ceil(profile.totalTime() / dt) + 1;
+                offsets[pair] = total;
+                total += lengths[pair];
+            }
+        }
+
+        positions = new float[total];
+        velocities = new float[total];
+        for (int from = 0; from < presetCount; from++) {
+            for (int to = 0; to < presetCount; to++) {
+                TrapezoidProfile.State start = new TrapezoidProfile.State(presetHeights[from], 0.0);
+                TrapezoidProfile.State goal = new TrapezoidProfile.State(presetHeights[to], 0.0);
+                int pair = from * presetCount + to;
+                int offset = offsets[pair];
+                int length = lengths[pair];
+                for (int i = 0; i < length - 1; i++) {
+                    TrapezoidProfile.State state = profile.calculate(i * dt, start, goal);
+                    positions[offset + i] = (float) state.position;
+                    velocities[offset + i] = (float) state.velocity;
+                }
+                positions[offset + length - 1] = (float) goal.position;
+                velocities[offset + length - 1] = 0.0f;
+            }
+        }
+    }
+
+    /*
+     * How long the move from one preset to another takes, in seconds.
+     */
+    public double getDuration(int from, int to) {
+        return (lengths[from * presetCount + to] - 1) * dt;
+    }
+
+    /*
+     * Write the profile's state t seconds into the move into out. Past the end of the move this is the goal, at rest.
+     */
+    public void sample(int from, int to, double t, TrapezoidProfile.State out) {
+        int pair = from * presetCount + to;
+        int offset = offsets[pair];
+        int last = lengths[pair] - 1;
+
+        double index = Math.max(t, 0.0) / dt;
+        int i = (int) index;
+        if (i >= last) {
+            out.position = positions[offset + last];
+            out.velocity = velocities[offset + last];
+            return;
+        }
+        double fraction = index - i;
+        out.position = positions[offset + i] + (positions[offset + i + 1] - positions[offset + i]) * fraction;
+        out.velocity = velocities[offset + i] + (velocities[offset + i + 1] - velocities[offset + i]) * fraction;
+    }
+
+    /*
+     * Time between samples, in seconds (the period of the loop the profiles were built for).
+     */
+    public double getPeriod() {
+        return dt;
+    }
+
+    /*
+     * Total number of stored samples, across every move.
+     */
+    public int getSampleCount() {
+        return positions.length;
+    }
+}
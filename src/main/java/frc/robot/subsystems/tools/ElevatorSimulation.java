@@ -0,0 +1,79 @@
+package frc.robot.subsystems.tools;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.DIOSim;
+import edu.wpi.first.wpilibj.simulation.ElevatorSim;
+import edu.wpi.first.wpilibj.simulation.EncoderSim;
+import frc.robot.Constants;
+import frc.robot.subsystems.commands.Elevator;
+
+/**
+ * Desktop physics for the elevator. Each update() feeds the output the Elevator last sent to its motors into an
+ * ElevatorSim (two CIMs through the elevator gearbox), then writes the simulated carriage back through the encoder
+ * and endstop sims, so the Elevator reads it exactly as it would read the real sensors.
+ */
+public class ElevatorSimulation {
+    private final Elevator elevator;
+    private final ElevatorSim model;
+    private final EncoderSim encoderSim;
+    private final DIOSim endstopSim;
+
+    /*
+     * Create after the Elevator, so its encoder and endstop exist.
+     */
+    public ElevatorSimulation(Elevator elevator) {
+        this.elevator = elevator;
+        this.model = createModel();
+        this.encoderSim = EncoderSim.createForChannel(Constants.Elevator.sEncoderID1);
+        this.endstopSim = new DIOSim(Constants.Elevator.sEndstopID);
+        writeSensors();
+    }
+
+    /*
+     * A model of the elevator on its own, with no HAL devices attached (so several can run at once).
+     * The carriage starts at the bottom.
+     */
+    public static ElevatorSim createModel() {
+        return new ElevatorSim(
+            DCMotor.getCIM(2),
+            Constants.Elevator.simGearing,
+            Constants.Elevator.simCarriageMassKg,
+            Constants.Elevator.simDrumRadiusMeters,
+            0.0,
+            Constants.Elevator.simMaxHeightMeters,
+            true,
+            0.0);
+    }
+
+    /*
+     * Advance the simulation by dt seconds.
+     */
+    public void update(double dt) {
+        // Elevator.manualShift sends -speed to the motors, so up is a negative output
+        double output = DriverStation.isEnabled() ? -elevator.getMotorOutput() : 0.0;
+        model.setInputVoltage(output * RobotController.getBatteryVoltage());
+        model.update(dt);
+        writeSensors();
+    }
+
+    public double getHeight() {
+        return model.getPositionMeters();
+    }
+
+    public double getVelocity() {
+        return model.getVelocityMetersPerSecond();
+    }
+
+    public double getCurrentDrawAmps() {
+        return model.getCurrentDrawAmps();
+    }
+
+    private void writeSensors() {
+        encoderSim.setDistance(model.getPositionMeters() * Constants.Elevator.countsPer1M);
+        encoderSim.setRate(model.getVelocityMetersPerSecond() * Constants.Elevator.countsPer1M);
+        // The endstop reads false while it's pressed (Elevator.getEndstop inverts it)
+        endstopSim.setValue(model.getPositionMeters() > Constants.Elevator.simEndstopHeightMeters);
+    }
+}
@@ -0,0 +1,114 @@
+package frc.robot.subsystems.tools;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * Measures how regularly a periodic callback actually runs.
+ * Call tick() once at the start of every run; the time since the previous tick is the real period.
+ * The period and its deviation from the expected period are recorded into fixed size histograms, and their
+ * distribution is published to "Perf/Jitter/<name>" about once a second.
+ * A monitor must only be ticked from one thread (the one running the callback). Ticking does not allocate.
+ */
+public class JitterMonitor {
+    private final LatencyHistogram periods = new LatencyHistogram();
+    private final LatencyHistogram deviations = new LatencyHistogram();
+
+    private final DoublePublisher networkPeriodP1;
+    private final DoublePublisher networkPeriodP50;
+    private final DoublePublisher networkPeriodP99;
+    private final DoublePublisher networkPeriodMax;
+    private final DoublePublisher networkDeviationP50;
+    private final DoublePublisher networkDeviationP99;
+    private final DoublePublisher networkDeviationMax;
+    private final DoublePublisher networkStdDev;
+    private final IntegerPublisher networkLate;
+    private final BooleanPublisher networkRealTime;
+
+    private final long expectedMicros;
+    private final int publishPeriodTicks;
+    private long lastTickNanos = -1;
+    private int ticksSincePublish;
+    private double sumSquaredDeviation;
+    private long late;
+
+    /*
+     * expectedPeriodSeconds is how often the callback is meant to run.
+     * A period more than twice that counts as late (a whole run was missed).
+     */
+    public JitterMonitor(String name, double expectedPeriodSeconds, double publishPeriodSeconds) {
+        this.expectedMicros = (long) (expectedPeriodSeconds * 1e6);
+        this.publishPeriodTicks = Math.max(1, (int) Math.round(publishPeriodSeconds / expectedPeriodSeconds));
+
+        NetworkTable table = NetworkTableInstance.getDefault().getTable("Perf").getSubTable("Jitter").getSubTable(name);
+        networkPeriodP1 = table.getDoubleTopic("Period p1 (us)").publish();
+        networkPeriodP50 = table.getDoubleTopic("Period p50 (us)").publish();
+        networkPeriodP99 = table.getDoubleTopic("Period p99 (us)").publish();
+        networkPeriodMax = table.getDoubleTopic("Period max (us)").publish();
+        networkDeviationP50 = table.getDoubleTopic("Deviation p50 (us)").publish();
+        networkDeviationP99 = table.getDoubleTopic("Deviation p99 (us)").publish();
+        networkDeviationMax = table.getDoubleTopic("Deviation max (us)").publish();
+        networkStdDev = table.getDoubleTopic("Period Std Dev (us)").publish();
+        networkLate = table.getIntegerTopic("Late").publish();
+        networkRealTime = table.getBooleanTopic("Real Time").publish();
+    }
+
+    /*
+     * Record whether the monitored thread is running at real-time priority, next to its jitter.
+     */
+    public void setRealTime(boolean realTime) {
+        networkRealTime.set(realTime);
+    }
+
+    /*
+     * Mark the start of a run of the callback.
+     */
+    public void tick() {
+        long now = System.nanoTime();
+        if (lastTickNanos < 0) {
+            lastTickNanos = now;
+            return;
+        }
+        long period = (now - lastTickNanos) / 1000;
+        lastTickNanos = now;
+
+        long deviation = period - expectedMicros;
+        periods.record(period);
+        deviations.record(Math.abs(deviation));
+        sumSquaredDeviation += (double) deviation * deviation;
+        if (period > 2 * expectedMicros) {
+            late++;
+        }
+
+        ticksSincePublish++;
+        if (ticksSincePublish >= publishPeriodTicks) {
+            publish();
+            ticksSincePublish = 0;
+        }
+    }
+
+    /*
+     * Publish the distribution gathered since the last publish, then start a new window.
+     * The standard deviation is taken around the expected period, not the mean, so a callback that's
+     * consistently slow still shows up.
+     */
+    private void publish() {
+        long count = periods.getCount();
+        networkPeriodP1.set(periods.getPercentile(1));
+        networkPeriodP50.set(periods.getPercentile(50));
+        networkPeriodP99.set(periods.getPercentile(99));
+        networkPeriodMax.set(periods.getMax());
+        networkDeviationP50.set(deviations.getPercentile(50));
+        networkDeviationP99.set(deviations.getPercentile(99));
+        networkDeviationMax.set(deviations.getMax());
+        networkStdDev.set(Math.sqrt(sumSquaredDeviation / count));
+        networkLate.set(late);
+
+        periods.reset();
+        deviations.reset();
+        sumSquaredDeviation = 0.0;
+    }
+}
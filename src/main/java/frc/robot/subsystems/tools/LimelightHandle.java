@@ -0,0 +1,192 @@
+package frc.robot.subsystems.tools;
+
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.DoubleSubscriber;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
+import frc.robot.LimelightHelpers;
+
+/**
+ * One Limelight camera, with its NetworkTables subscribers created once up front.
+ * Call refresh() once per loop; every getter then reads from that snapshot instead of
+ * looking the table and entry up by name on each call like the static LimelightHelpers getters do.
+ * The botpose subscribers also queue every value published (up to POSE_QUEUE_DEPTH), so a consumer can take every
+ * frame since its last read with readBotPoseQueue() instead of only the newest.
+ */
+public class LimelightHandle implements AutoCloseable {
+    // ~4 loops of frames at 90 fps
+    public static final int POSE_QUEUE_DEPTH = 8;
+
+    private final String limelightName;
+
+    private final DoubleSubscriber tvSubscriber;
+    private final DoubleSubscriber txSubscriber;
+    private final DoubleSubscriber tySubscriber;
+    private final DoubleSubscriber taSubscriber;
+    private final DoubleSubscriber latencyPipelineSubscriber;
+    private final DoubleSubscriber latencyCaptureSubscriber;
+    private final DoubleSubscriber heartbeatSubscriber;
+    private final DoubleArraySubscriber botposeBlueSubscriber;
+    private final DoubleArraySubscriber botposeOrbBlueSubscriber;
+    private final DoubleArraySubscriber rawFiducialsSubscriber;
+
+    private boolean tv;
+    private double tx;
+    private double ty;
+    private double ta;
+    private double latencyPipeline;
+    private double latencyCapture;
+    private long txTimestampMicros;
+    private long frameTimestampMicros;
+
+    public LimelightHandle(String limelightName) {
+        this.limelightName = limelightName;
+        NetworkTable table = LimelightHelpers.getLimelightNTTable(limelightName);
+
+        tvSubscriber = table.getDoubleTopic("tv").subscribe(0.0);
+        txSubscriber = table.getDoubleTopic("tx").subscribe(0.0);
+        tySubscriber = table.getDoubleTopic("ty").subscribe(0.0);
+        taSubscriber = table.getDoubleTopic("ta").subscribe(0.0);
+        latencyPipelineSubscriber = table.getDoubleTopic("tl").subscribe(0.0);
+        latencyCaptureSubscriber = table.getDoubleTopic("cl").subscribe(0.0);
+        heartbeatSubscriber = table.getDoubleTopic("hb").subscribe(0.0);
+        PubSubOption[] queueOptions = {
+            PubSubOption.sendAll(true), PubSubOption.keepDuplicates(true), PubSubOption.pollStorage(POSE_QUEUE_DEPTH)};
+        botposeBlueSubscriber = table.getDoubleArrayTopic("botpose_wpiblue").subscribe(new double[0], queueOptions);
+        botposeOrbBlueSubscriber = table.getDoubleArrayTopic("botpose_orb_wpiblue").subscribe(new double[0], queueOptions);
+        rawFiducialsSubscriber = table.getDoubleArrayTopic("rawfiducials").subscribe(new double[0]);
+    }
+
+    /*
+     * Take a snapshot of the scalar targeting values. Call once per loop, before anything reads them.
+     */
+    public void refresh() {
+        tv = tvSubscriber.get() == 1.0;
+        tx = txSubscriber.get();
+        ty = tySubscriber.get();
+        ta = taSubscriber.get();
+        latencyPipeline = latencyPipelineSubscriber.get();
+        latencyCapture = latencyCaptureSubscriber.get();
+        txTimestampMicros = txSubscriber.getLastChange();
+        frameTimestampMicros = heartbeatSubscriber.getLastChange();
+    }
+
+    public String getName() {
+        return limelightName;
+    }
+
+    /*
+     * Does the Limelight have a valid target?
+     */
+    public boolean getTV() {
+        return tv;
+    }
+
+    /*
+     * Horizontal offset from the crosshair to the target, in degrees.
+     */
+    public double getTX() {
+        return tx;
+    }
+
+    /*
+     * Vertical offset from the crosshair to the target, in degrees.
+     */
+    public double getTY() {
+        return ty;
+    }
+
+    /*
+     * Target area, as a percentage of the image.
+     */
+    public double getTA() {
+        return ta;
+    }
+
+    /*
+     * Pipeline latency, in milliseconds.
+     */
+    public double getLatencyPipeline() {
+        return latencyPipeline;
+    }
+
+    /*
+     * Capture latency, in milliseconds.
+     */
+    public double getLatencyCapture() {
+        return latencyCapture;
+    }
+
+    /*
+     * Local NetworkTables time (microseconds) when tx last changed.
+     */
+    public long getTXTimestampMicros() {
+        return txTimestampMicros;
+    }
+
+    /*
+     * Local NetworkTables time (microseconds) when the newest frame arrived.
+     * Unlike the tx timestamp this moves on every frame (the heartbeat counts up each one), even if tx doesn't change.
+     */
+    public long getFrameTimestampMicros() {
+        return frameTimestampMicros;
+    }
+
+    /*
+     * Decode the latest MegaTag1 blue-origin pose into a reusable buffer.
+     */
+    public boolean getBotPoseEstimate_wpiBlue(LimelightHelpers.PoseEstimateBuffer out) {
+        return readPoseEstimate(botposeBlueSubscriber, false, out);
+    }
+
+    /*
+     * Decode the latest MegaTag2 blue-origin pose into a reusable buffer.
+     */
+    public boolean getBotPoseEstimate_wpiBlue_MegaTag2(LimelightHelpers.PoseEstimateBuffer out) {
+        return readPoseEstimate(botposeOrbBlueSubscriber, true, out);
+    }
+
+    /*
+     * Decode every blue-origin pose (MegaTag2 or MegaTag1) published since the last call into out, oldest first.
+     * If more arrived than out holds, only the newest are kept. Returns the number decoded.
+     */
+    public int readBotPoseQueue(boolean isMegaTag2, LimelightHelpers.PoseEstimateBuffer[] out) {
+        TimestampedDoubleArray[] queue = (isMegaTag2 ? botposeOrbBlueSubscriber : botposeBlueSubscriber).readQueue();
+        int first = Math.max(0, queue.length - out.length);
+        int count = 0;
+        for (int i = first; i < queue.length; i++) {
+            LimelightHelpers.decodePoseEstimate(queue[i].value, queue[i].timestamp, isMegaTag2, out[count++]);
+        }
+        return count;
+    }
+
+    /*
+     * Decode the latest raw fiducials into a reusable buffer. Returns the number of fiducials.
+     */
+    public int getRawFiducials(LimelightHelpers.RawFiducialBuffer out) {
+        return LimelightHelpers.decodeRawFiducials(rawFiducialsSubscriber.get(), out);
+    }
+
+    @Override
+    public void close() {
+        tvSubscriber.close();
+        txSubscriber.close();
+        tySubscriber.close();
+        taSubscriber.close();
+        latencyPipelineSubscriber.close();
+        latencyCaptureSubscriber.close();
+        heartbeatSubscriber.close();
+        botposeBlueSubscriber.close();
+        botposeOrbBlueSubscriber.close();
+        rawFiducialsSubscriber.close();
+    }
+
+    /*
+     * Read an array and its timestamp as one consistent pair.
+     */
+    private static boolean readPoseEstimate(DoubleArraySubscriber subscriber, boolean isMegaTag2, LimelightHelpers.PoseEstimateBuffer out) {
+        TimestampedDoubleArray tsValue = subscriber.getAtomic();
+        return LimelightHelpers.decodePoseEstimate(tsValue.value, tsValue.timestamp, isMegaTag2, out);
+    }
+}
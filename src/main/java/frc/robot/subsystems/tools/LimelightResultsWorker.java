@@ -0,0 +1,136 @@
+package frc.robot.subsystems.tools;
+
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableListenerPoller;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.networktables.NetworkTablesJNI;
+import edu.wpi.first.networktables.StringSubscriber;
+import edu.wpi.first.util.WPIUtilJNI;
+import frc.robot.LimelightHelpers;
+
+/**
+ * Parses a Limelight's JSON results on a dedicated thread instead of the robot loop.
+ * The worker wakes up whenever a new "json" value is published and decodes only the newest one
+ * (older ones that queued up while it was busy are skipped) with the streaming ResultsDecoder.
+ *
+ * The decoder reuses its output, so results are handed over through three of its buffers (a triple buffer): the worker
+ * decodes into its own, then swaps it with the shared one; the robot loop takes the shared one in update(), once per
+ * loop. Neither side ever waits, and the worker never writes into the results the loop is reading.
+ */
+public class LimelightResultsWorker implements AutoCloseable {
+    /**
+     * One parsed result, and the local NetworkTables time (microseconds) its JSON arrived.
+     */
+    public static class Snapshot {
+        public LimelightHelpers.LimelightResults results;
+        public long receivedMicros;
+
+        /*
+         * How long ago the JSON for this result arrived, in seconds.
+         */
+        public double getAgeSeconds() {
+            return (NetworkTablesJNI.now() - receivedMicros) / 1e6;
+        }
+    }
+
+    // How long the worker waits for a new value before re-checking whether it should stop
+    private static final double WAIT_TIMEOUT_SECONDS = 0.1;
+
+    private static final int BUFFERS = 3;
+    // Set in the shared index when the worker has swapped in a buffer the loop hasn't taken yet
+    private static final int FRESH = 4;
+
+    private final LimelightHelpers.ResultsDecoder decoder =
+        new LimelightHelpers.ResultsDecoder(LimelightHelpers.ResultsDecoder.DEFAULT_FIDUCIAL_CAPACITY, BUFFERS);
+    private final Snapshot[] snapshots = new Snapshot[BUFFERS];
+    // Buffer index (plus FRESH) shared between the two threads; the other two belong to one side each
+    private final AtomicInteger shared = new AtomicInteger(1);
+    private int workerBuffer = 0;
+    private int loopBuffer = 2;
+    private boolean loopHasResults = false;
+    private final StringSubscriber jsonSubscriber;
+    private final NetworkTableListenerPoller poller;
+    private final Thread thread;
+    private volatile boolean running = false;
+
+    public LimelightResultsWorker(String limelightName) {
+        jsonSubscriber = LimelightHelpers.getLimelightNTTable(limelightName).getStringTopic("json").subscribe("");
+        poller = new NetworkTableListenerPoller(NetworkTableInstance.getDefault());
+        poller.addListener(jsonSubscriber, EnumSet.of(NetworkTableEvent.Kind.kValueAll));
+
+        for (int i = 0; i < BUFFERS; i++) {
+            snapshots[i] = new Snapshot();
+        }
+
+        thread = new Thread(this::run, "Limelight results (" + limelightName + ")");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /*
+     * Take the newest parsed result, if there's one the loop hasn't taken yet. Call once per loop, from the loop:
+     * getLatest() then returns the same result until the next update().
+     */
+    public void update() {
+        if ((shared.get() & FRESH) != 0) {
+            loopBuffer = shared.getAndSet(loopBuffer) & ~FRESH;
+            loopHasResults = true;
+        }
+    }
+
+    /*
+     * The result taken by the last update(), or null if nothing has been parsed yet.
+     */
+    public Snapshot getLatest() {
+        return loopHasResults ? snapshots[loopBuffer] : null;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        poller.close();
+        jsonSubscriber.close();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (!WPIUtilJNI.waitForObjectTimeout(poller.getHandle(), WAIT_TIMEOUT_SECONDS)) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            // Latest wins: only the newest value in the queue is worth parsing.
+            NetworkTableValue newest = null;
+            for (NetworkTableEvent event : poller.readQueue()) {
+                if (event.valueData != null) {
+                    newest = event.valueData.value;
+                }
+            }
+            if (newest == null || !newest.isString()) {
+                continue;
+            }
+
+            Snapshot snapshot = snapshots[workerBuffer];
+            snapshot.results = decoder.decode(newest.getString(), workerBuffer);
+            snapshot.receivedMicros = newest.getTime();
+            workerBuffer = shared.getAndSet(workerBuffer | FRESH) & ~FRESH;
+        }
+    }
+}
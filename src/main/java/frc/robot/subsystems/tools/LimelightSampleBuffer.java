@@ -0,0 +1,271 @@
+package frc.robot.subsystems.tools;
+
+import java.util.EnumSet;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.DoubleSubscriber;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableListener;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.Subscriber;
+import frc.robot.LimelightHelpers;
+
+/**
+ * Records every tx/ty/ta/botpose publication from a Limelight as it arrives, instead of polling once per loop.
+ * NetworkTables listeners write each value, stamped with its NT server time, into a fixed size ring of primitive
+ * arrays. The Limelight publishes a frame's values a few microseconds apart, so values that land within
+ * MERGE_WINDOW_MICROS of each other are merged into one sample; fields a frame didn't publish carry over from
+ * the previous sample.
+ * Consumers can ask for the latest sample, an interpolated sample at any time still in the ring, or every
+ * sample since the one they last saw. Reads copy into caller owned Sample objects, so nothing allocates.
+ */
+public class LimelightSampleBuffer implements AutoCloseable {
+    /**
+     * One captured frame. Reused by the caller between reads.
+     */
+    public static class Sample {
+        // Increases by one for every sample recorded; use it to ask for samples since this one.
+        public long sequence = -1;
+        public double timestampSeconds;
+        public double tx;
+        public double ty;
+        public double ta;
+        public boolean hasPose;
+        public double poseX;
+        public double poseY;
+        public double poseYawDegrees;
+    }
+
+    private static final long MERGE_WINDOW_MICROS = 2000;
+
+    private static final int FIELD_TX = 1;
+    private static final int FIELD_TY = 1 << 1;
+    private static final int FIELD_TA = 1 << 2;
+    private static final int FIELD_POSE = 1 << 3;
+
+    private final int capacity;
+    private final long[] timestampMicros;
+    private final double[] tx;
+    private final double[] ty;
+    private final double[] ta;
+    private final boolean[] hasPose;
+    private final double[] poseX;
+    private final double[] poseY;
+    private final double[] poseYaw;
+    private final int[] fieldsSet;
+
+    // Total samples ever recorded; the newest sample has sequence written - 1.
+    private long written = 0;
+
+    private final Subscriber[] subscribers;
+    private final NetworkTableListener[] listeners;
+
+    public LimelightSampleBuffer(String limelightName, int capacity) {
+        this.capacity = capacity;
+        timestampMicros = new long[capacity];
+        tx = new double[capacity];
+        ty = new double[capacity];
+        ta = new double[capacity];
+        hasPose = new boolean[capacity];
+        poseX = new double[capacity];
+        poseY = new double[capacity];
+        poseYaw = new double[capacity];
+        fieldsSet = new int[capacity];
+
+        // Every publication, even one that repeats the last value: a steady tx is still a new frame
+        PubSubOption[] options = {PubSubOption.sendAll(true), PubSubOption.keepDuplicates(true)};
+        NetworkTable table = LimelightHelpers.getLimelightNTTable(limelightName);
+        DoubleSubscriber txSubscriber = table.getDoubleTopic("tx").subscribe(0.0, options);
+        DoubleSubscriber tySubscriber = table.getDoubleTopic("ty").subscribe(0.0, options);
+        DoubleSubscriber taSubscriber = table.getDoubleTopic("ta").subscribe(0.0, options);
+        DoubleArraySubscriber poseSubscriber = table.getDoubleArrayTopic("botpose_wpiblue").subscribe(new double[0], options);
+        subscribers = new Subscriber[] {txSubscriber, tySubscriber, taSubscriber, poseSubscriber};
+
+        EnumSet<NetworkTableEvent.Kind> kinds = EnumSet.of(NetworkTableEvent.Kind.kValueAll);
+        listeners = new NetworkTableListener[] {
+            NetworkTableListener.createListener(txSubscriber, kinds, event -> onValue(FIELD_TX, event)),
+            NetworkTableListener.createListener(tySubscriber, kinds, event -> onValue(FIELD_TY, event)),
+            NetworkTableListener.createListener(taSubscriber, kinds, event -> onValue(FIELD_TA, event)),
+            NetworkTableListener.createListener(poseSubscriber, kinds, event -> onValue(FIELD_POSE, event))
+        };
+    }
+
+    /*
+     * Sequence number of the newest sample, or -1 if nothing has been recorded.
+     */
+    public synchronized long getLatestSequence() {
+        return written - 1;
+    }
+
+    /*
+     * Copy the newest sample into out. Returns false if nothing has been recorded yet.
+     */
+    public synchronized boolean getLatest(Sample out) {
+        if (written == 0) {
+            return false;
+        }
+        copy(written - 1, out);
+        return true;
+    }
+
+    /*
+     * Interpolate a sample at the given NT server time, in seconds.
+     * Times before the oldest or after the newest sample in the ring are clamped to that sample.
+     * Returns false if nothing has been recorded yet.
+     */
+    public synchronized boolean getSampleAt(double timestampSeconds, Sample out) {
+        if (written == 0) {
+            return false;
+        }
+        long oldest = Math.max(0, written - capacity);
+        long newest = written - 1;
+        long target = (long) (timestampSeconds * 1e6);
+
+        if (target <= timestampMicros[slot(oldest)]) {
+            copy(oldest, out);
+            return true;
+        }
+        if (target >= timestampMicros[slot(newest)]) {
+            copy(newest, out);
+            return true;
+        }
+
+        // Binary search for the last sample at or before the target time.
+        long low = oldest;
+        long high = newest;
+        while (high - low > 1) {
+            long mid = (low + high) >>> 1;
+            if (timestampMicros[slot(mid)] <= target) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+
+        int before = slot(low);
+        int after = slot(high);
+        double t = (double) (target - timestampMicros[before]) / (timestampMicros[after] - timestampMicros[before]);
+
+        copy(low, out);
+        out.timestampSeconds = timestampSeconds;
+        out.tx = MathUtil.interpolate(tx[before], tx[after], t);
+        out.ty = MathUtil.interpolate(ty[before], ty[after], t);
+        out.ta = MathUtil.interpolate(ta[before], ta[after], t);
+        if (hasPose[before] && hasPose[after]) {
+            out.poseX = MathUtil.interpolate(poseX[before], poseX[after], t);
+            out.poseY = MathUtil.interpolate(poseY[before], poseY[after], t);
+            out.poseYawDegrees = poseYaw[before] + t * MathUtil.inputModulus(poseYaw[after] - poseYaw[before], -180.0, 180.0);
+        }
+        return true;
+    }
+
+    /*
+     * Copy every sample newer than afterSequence into out, oldest first.
+     * If more samples arrived than out can hold, or than the ring still holds, only the newest are returned.
+     * Returns the number of samples copied.
+     */
+    public synchronized int getSamplesSince(long afterSequence, Sample[] out) {
+        long first = Math.max(afterSequence + 1, Math.max(0, written - capacity));
+        first = Math.max(first, written - out.length);
+        int count = 0;
+        for (long sequence = first; sequence < written; sequence++) {
+            copy(sequence, out[count++]);
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        for (NetworkTableListener listener : listeners) {
+            listener.close();
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+    }
+
+    /*
+     * Runs on the NetworkTables listener thread for every new value.
+     */
+    private synchronized void onValue(int field, NetworkTableEvent event) {
+        if (event.valueData == null) {
+            return;
+        }
+        NetworkTableValue value = event.valueData.value;
+        long timestamp = value.getServerTime();
+
+        int current = slot(written - 1);
+        boolean merge = written > 0
+            && (fieldsSet[current] & field) == 0
+            && Math.abs(timestamp - timestampMicros[current]) <= MERGE_WINDOW_MICROS;
+
+        if (!merge) {
+            current = startSample(timestamp);
+        }
+
+        switch (field) {
+            case FIELD_TX:
+                tx[current] = value.getDouble();
+                break;
+            case FIELD_TY:
+                ty[current] = value.getDouble();
+                break;
+            case FIELD_TA:
+                ta[current] = value.getDouble();
+                break;
+            case FIELD_POSE:
+                double[] pose = value.getDoubleArray();
+                hasPose[current] = pose.length >= 6;
+                if (hasPose[current]) {
+                    poseX[current] = pose[0];
+                    poseY[current] = pose[1];
+                    poseYaw[current] = pose[5];
+                }
+                break;
+            default:
+                break;
+        }
+        fieldsSet[current] |= field;
+    }
+
+    /*
+     * Open a new sample, carrying the previous sample's values forward. Returns its slot.
+     */
+    private int startSample(long timestamp) {
+        int next = slot(written);
+        if (written > 0) {
+            int previous = slot(written - 1);
+            tx[next] = tx[previous];
+            ty[next] = ty[previous];
+            ta[next] = ta[previous];
+            hasPose[next] = hasPose[previous];
+            poseX[next] = poseX[previous];
+            poseY[next] = poseY[previous];
+            poseYaw[next] = poseYaw[previous];
+        }
+        timestampMicros[next] = timestamp;
+        fieldsSet[next] = 0;
+        written++;
+        return next;
+    }
+
+    private void copy(long sequence, Sample out) {
+        int i = slot(sequence);
+        out.sequence = sequence;
+        out.timestampSeconds = timestampMicros[i] / 1e6;
+        out.tx = tx[i];
+        out.ty = ty[i];
+        out.ta = ta[i];
+        out.hasPose = hasPose[i];
+        out.poseX = poseX[i];
+        out.poseY = poseY[i];
+        out.poseYawDegrees = poseYaw[i];
+    }
+
+    private int slot(long sequence) {
+        return (int) Math.floorMod(sequence, (long) capacity);
+    }
+}
@@ -0,0 +1,162 @@
+package frc.robot.subsystems.tools;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * Lightweight per-phase timer for the main robot loop.
+ * Each phase is bracketed with start()/stop(), or timed in laps with mark()/lap() where only the end of each piece of
+ * work can be hooked (the commands the CommandScheduler runs). The time spent in a phase is summed over the loop and
+ * recorded into a fixed size histogram once the loop ends. Phases may nest (LOOP and SCHEDULER include the others).
+ * p50/p99/max for every phase, plus the number of loops that overran their period, are published to the "Perf"
+ * NetworkTables table every few loops.
+ * Recording does not allocate, and costs two System.nanoTime() calls per bracket.
+ */
+public class LoopProfiler {
+    public enum Phase {
+        LOOP,
+        LIMELIGHT,
+        SCHEDULER,
+        LED,
+        ELEVATOR,
+        END_EFFECTOR,
+        ALGAE,
+        DRIVE,
+        POSE_ESTIMATOR,
+        AUTONOMOUS,
+        TELEMETRY,
+        LOGGING
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private final long[] startNanos = new long[PHASES.length];
+    private final long[] loopNanos = new long[PHASES.length];
+    private final boolean[] ranThisLoop = new boolean[PHASES.length];
+    private long lapStartNanos;
+
+    private final DoublePublisher[] networkP50 = new DoublePublisher[PHASES.length];
+    private final DoublePublisher[] networkP99 = new DoublePublisher[PHASES.length];
+    private final DoublePublisher[] networkMax = new DoublePublisher[PHASES.length];
+    private final IntegerPublisher networkOverruns;
+    private final IntegerPublisher networkLoops;
+
+    private final long loopBudgetMicros;
+    private final int publishPeriodLoops;
+    private int loopsSincePublish;
+    private long overruns;
+    private long loops;
+
+    /*
+     * loopPeriodSeconds is the robot's loop period; any loop taking longer counts as an overrun.
+     * publishPeriodLoops is how many loops are aggregated between publishes.
+     */
+    public LoopProfiler(double loopPeriodSeconds, int publishPeriodLoops) {
+        this.loopBudgetMicros = (long) (loopPeriodSeconds * 1e6);
+        this.publishPeriodLoops = publishPeriodLoops;
+
+        NetworkTable perfTable = NetworkTableInstance.getDefault().getTable("Perf");
+        for (Phase phase : PHASES) {
+            int i = phase.ordinal();
+            NetworkTable phaseTable = perfTable.getSubTable(phase.name());
+            histograms[i] = new LatencyHistogram();
+            networkP50[i] = phaseTable.getDoubleTopic("p50 (us)").publish();
+            networkP99[i] = phaseTable.getDoubleTopic("p99 (us)").publish();
+            networkMax[i] = phaseTable.getDoubleTopic("max (us)").publish();
+        }
+        networkOverruns = perfTable.getIntegerTopic("Loop Overruns").publish();
+        networkLoops = perfTable.getIntegerTopic("Loops").publish();
+    }
+
+    /*
+     * Mark the beginning of a robot loop.
+     */
+    public void startLoop() {
+        start(Phase.LOOP);
+    }
+
+    /*
+     * Mark the end of a robot loop. Records every phase that ran and publishes when due.
+     */
+    public void endLoop() {
+        stop(Phase.LOOP);
+        loops++;
+        if (loopNanos[Phase.LOOP.ordinal()] / 1000 > loopBudgetMicros) {
+            overruns++;
+        }
+
+        for (int i = 0; i < PHASES.length; i++) {
+            if (ranThisLoop[i]) {
+                histograms[i].record(loopNanos[i] / 1000);
+                loopNanos[i] = 0;
+                ranThisLoop[i] = false;
+            }
+        }
+
+        loopsSincePublish++;
+        if (loopsSincePublish >= publishPeriodLoops) {
+            publish();
+            loopsSincePublish = 0;
+        }
+    }
+
+    /*
+     * Start timing a phase. A phase may be started and stopped several times in one loop;
+     * the durations are summed.
+     */
+    public void start(Phase phase) {
+        startNanos[phase.ordinal()] = System.nanoTime();
+    }
+
+    /*
+     * Stop timing a phase.
+     */
+    public void stop(Phase phase) {
+        int i = phase.ordinal();
+        loopNanos[i] += System.nanoTime() - startNanos[i];
+        ranThisLoop[i] = true;
+    }
+
+    /*
+     * Start a lap. The next lap() call is timed from here.
+     */
+    public void mark() {
+        lapStartNanos = System.nanoTime();
+    }
+
+    /*
+     * Add the time since the last mark() or lap() to a phase, and start the next lap.
+     */
+    public void lap(Phase phase) {
+        int i = phase.ordinal();
+        long now = System.nanoTime();
+        loopNanos[i] += now - lapStartNanos;
+        ranThisLoop[i] = true;
+        lapStartNanos = now;
+    }
+
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /*
+     * Publish the stats gathered since the last publish, then start a new window.
+     */
+    private void publish() {
+        for (int i = 0; i < PHASES.length; i++) {
+            LatencyHistogram histogram = histograms[i];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            networkP50[i].set(histogram.getPercentile(50));
+            networkP99[i].set(histogram.getPercentile(99));
+            networkMax[i].set(histogram.getMax());
+            histogram.reset();
+        }
+        networkOverruns.set(overruns);
+        networkLoops.set(loops);
+    }
+}
@@ -0,0 +1,249 @@
+package frc.robot.subsystems.tools;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.networktables.StringSubscriber;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+import edu.wpi.first.util.datalog.StringLogEntry;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.DIOSim;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.EncoderSim;
+import frc.robot.Constants;
+import frc.robot.LimelightHelpers;
+import frc.robot.subsystems.commands.Elevator;
+import frc.robot.subsystems.commands.EndEffector;
+
+/**
+ * Records every hardware input the robot reads, once per loop, so a match can be fed back through Robot on a desktop.
+ *
+ * Each loop appends one fixed-layout frame (see the index constants below) to the "Replay/Inputs" DataLog entry:
+ * the DS mode, every axis/button/POV of the controllers in ControllerMap, the elevator encoder (raw, without the homing
+ * offset), endstop and any homing edge latched that loop, the EndEffector beam break and the Limelight targeting values. The SmartDashboard chooser selections are logged as
+ * strings whenever they change.
+ *
+ * The same layout is used by Applier, which pushes a frame into the HAL sim, DIO/encoder sims and NetworkTables.
+ */
+public class ReplayInputs {
+    public static final String INPUTS_ENTRY = "Replay/Inputs";
+    public static final String CHOOSER_ENTRY_PREFIX = "Replay/Chooser/";
+    // Bump when the frame layout changes, so old logs are rejected instead of misread.
+    public static final String LAYOUT_VERSION = "2";
+
+    // Same ports as ControllerMap
+    public static final int STICK_COUNT = 2;
+    public static final int MAX_AXES = 6;
+
+    // Frame layout
+    public static final int FLAGS = 0;
+    public static final int ALLIANCE_STATION = 1;
+    public static final int MATCH_TIME = 2;
+    public static final int STICKS_START = 3;
+    // Per stick: axis count, axes, button count, button bitmask, POV count, POV 0
+    public static final int STICK_AXIS_COUNT = 0;
+    public static final int STICK_AXES = 1;
+    public static final int STICK_BUTTON_COUNT = STICK_AXES + MAX_AXES;
+    public static final int STICK_BUTTONS = STICK_BUTTON_COUNT + 1;
+    public static final int STICK_POV_COUNT = STICK_BUTTONS + 1;
+    public static final int STICK_POV = STICK_POV_COUNT + 1;
+    public static final int STICK_SIZE = STICK_POV + 1;
+    public static final int ELEVATOR_DISTANCE = STICKS_START + STICK_COUNT * STICK_SIZE;
+    public static final int ELEVATOR_ENDSTOP = ELEVATOR_DISTANCE + 1;
+    // FPGA timestamp and raw encoder distance of the endstop edge latched this loop (NaN if none)
+    public static final int ELEVATOR_EDGE_TIMESTAMP = ELEVATOR_ENDSTOP + 1;
+    public static final int ELEVATOR_EDGE_DISTANCE = ELEVATOR_EDGE_TIMESTAMP + 1;
+    public static final int BEAM_BREAK = ELEVATOR_EDGE_DISTANCE + 1;
+    public static final int LIMELIGHT_TV = BEAM_BREAK + 1;
+    public static final int LIMELIGHT_TX = LIMELIGHT_TV + 1;
+    public static final int LIMELIGHT_TY = LIMELIGHT_TX + 1;
+    public static final int LIMELIGHT_TA = LIMELIGHT_TY + 1;
+    public static final int LIMELIGHT_TL = LIMELIGHT_TA + 1;
+    public static final int LIMELIGHT_CL = LIMELIGHT_TL + 1;
+    public static final int FRAME_SIZE = LIMELIGHT_CL + 1;
+
+    // Bits of the FLAGS slot
+    public static final int FLAG_ENABLED = 1;
+    public static final int FLAG_AUTONOMOUS = 1 << 1;
+    public static final int FLAG_TEST = 1 << 2;
+    public static final int FLAG_DS_ATTACHED = 1 << 3;
+    public static final int FLAG_FMS_ATTACHED = 1 << 4;
+
+    private final Elevator elevator;
+    private final EndEffector endEffector;
+    private final LimelightHandle limelightHandle;
+
+    private final DoubleArrayLogEntry inputsEntry;
+    private final double[] frame = new double[FRAME_SIZE];
+
+    private final StringSubscriber[] chooserSubscribers;
+    private final StringLogEntry[] chooserEntries;
+
+    public ReplayInputs(DataLog log, Elevator elevator, EndEffector endEffector, LimelightHandle limelightHandle, String... chooserKeys) {
+        this.elevator = elevator;
+        this.endEffector = endEffector;
+        this.limelightHandle = limelightHandle;
+
+        inputsEntry = new DoubleArrayLogEntry(log, INPUTS_ENTRY, LAYOUT_VERSION);
+
+        NetworkTable smartDashboard = NetworkTableInstance.getDefault().getTable("SmartDashboard");
+        chooserSubscribers = new StringSubscriber[chooserKeys.length];
+        chooserEntries = new StringLogEntry[chooserKeys.length];
+        for (int i = 0; i < chooserKeys.length; i++) {
+            chooserSubscribers[i] = smartDashboard.getSubTable(chooserKeys[i]).getStringTopic("active").subscribe("");
+            chooserEntries[i] = new StringLogEntry(log, CHOOSER_ENTRY_PREFIX + chooserKeys[i]);
+        }
+    }
+
+    /*
+     * Append this loop's inputs. Call once per loop, after the DS data and Limelight snapshot are taken and before
+     * anything reads the inputs, so the frame holds exactly what the rest of the loop sees.
+     */
+    public void record() {
+        int flags = 0;
+        if (DriverStation.isEnabled()) flags |= FLAG_ENABLED;
+        if (DriverStation.isAutonomous()) flags |= FLAG_AUTONOMOUS;
+        if (DriverStation.isTest()) flags |= FLAG_TEST;
+        if (DriverStation.isDSAttached()) flags |= FLAG_DS_ATTACHED;
+        if (DriverStation.isFMSAttached()) flags |= FLAG_FMS_ATTACHED;
+        frame[FLAGS] = flags;
+        frame[ALLIANCE_STATION] = DriverStation.getRawAllianceStation().ordinal();
+        frame[MATCH_TIME] = DriverStation.getMatchTime();
+
+        for (int stick = 0; stick < STICK_COUNT; stick++) {
+            int base = STICKS_START + stick * STICK_SIZE;
+            int axisCount = Math.min(DriverStation.getStickAxisCount(stick), MAX_AXES);
+            frame[base + STICK_AXIS_COUNT] = axisCount;
+            for (int axis = 0; axis < MAX_AXES; axis++) {
+                frame[base + STICK_AXES + axis] = axis < axisCount ? DriverStation.getStickAxis(stick, axis) : 0.0;
+            }
+            frame[base + STICK_BUTTON_COUNT] = DriverStation.getStickButtonCount(stick);
+            frame[base + STICK_BUTTONS] = DriverStation.getStickButtons(stick);
+            int povCount = DriverStation.getStickPOVCount(stick);
+            frame[base + STICK_POV_COUNT] = povCount;
+            frame[base + STICK_POV] = povCount > 0 ? DriverStation.getStickPOV(stick, 0) : -1;
+        }
+
+        frame[ELEVATOR_DISTANCE] = elevator.getEncoderDistance();
+        frame[ELEVATOR_ENDSTOP] = elevator.getEndstop() ? 1.0 : 0.0;
+        frame[ELEVATOR_EDGE_TIMESTAMP] = elevator.getLatchedEdgeTimestamp();
+        frame[ELEVATOR_EDGE_DISTANCE] = elevator.getLatchedEdgeDistance();
+        frame[BEAM_BREAK] = endEffector.getEndstop() ? 1.0 : 0.0;
+
+        frame[LIMELIGHT_TV] = limelightHandle.getTV() ? 1.0 : 0.0;
+        frame[LIMELIGHT_TX] = limelightHandle.getTX();
+        frame[LIMELIGHT_TY] = limelightHandle.getTY();
+        frame[LIMELIGHT_TA] = limelightHandle.getTA();
+        frame[LIMELIGHT_TL] = limelightHandle.getLatencyPipeline();
+        frame[LIMELIGHT_CL] = limelightHandle.getLatencyCapture();
+
+        // Choosers first, so Replay selects them before it runs the loop for this frame
+        for (int i = 0; i < chooserSubscribers.length; i++) {
+            chooserEntries[i].update(chooserSubscribers[i].get());
+        }
+
+        inputsEntry.append(frame);
+    }
+
+    /**
+     * Pushes recorded frames into the desktop HAL sim. Create it after Robot.robotInit(), once the devices exist.
+     * Homing edges are handed to the elevator directly, since the sim interrupt's timing isn't the robot's.
+     */
+    public static class Applier {
+        private final Elevator elevator;
+        private final EncoderSim elevatorEncoder;
+        private final DIOSim elevatorEndstop;
+        private final DIOSim beamBreak;
+
+        private final DoublePublisher tvPublisher;
+        private final DoublePublisher txPublisher;
+        private final DoublePublisher tyPublisher;
+        private final DoublePublisher taPublisher;
+        private final DoublePublisher tlPublisher;
+        private final DoublePublisher clPublisher;
+
+        private final NetworkTable smartDashboard = NetworkTableInstance.getDefault().getTable("SmartDashboard");
+        private final Map<String, StringPublisher> chooserPublishers = new HashMap<>();
+
+        public Applier(Elevator elevator) {
+            this.elevator = elevator;
+            elevator.replayEndstopEdges();
+            elevatorEncoder = EncoderSim.createForChannel(Constants.Elevator.sEncoderID1);
+            elevatorEndstop = new DIOSim(Constants.Elevator.sEndstopID);
+            beamBreak = new DIOSim(Constants.EndEffector.s_breakID);
+
+            NetworkTable limelightTable = LimelightHelpers.getLimelightNTTable(Constants.Limelight.name);
+            tvPublisher = limelightTable.getDoubleTopic("tv").publish();
+            txPublisher = limelightTable.getDoubleTopic("tx").publish();
+            tyPublisher = limelightTable.getDoubleTopic("ty").publish();
+            taPublisher = limelightTable.getDoubleTopic("ta").publish();
+            tlPublisher = limelightTable.getDoubleTopic("tl").publish();
+            clPublisher = limelightTable.getDoubleTopic("cl").publish();
+        }
+
+        /*
+         * Make the next loop see exactly the inputs in this frame.
+         */
+        public void apply(double[] frame) {
+            if (frame.length != FRAME_SIZE) {
+                throw new IllegalArgumentException("Input frame has " + frame.length + " values, expected " + FRAME_SIZE);
+            }
+
+            int flags = (int) frame[FLAGS];
+            DriverStationSim.setEnabled((flags & FLAG_ENABLED) != 0);
+            DriverStationSim.setAutonomous((flags & FLAG_AUTONOMOUS) != 0);
+            DriverStationSim.setTest((flags & FLAG_TEST) != 0);
+            DriverStationSim.setDsAttached((flags & FLAG_DS_ATTACHED) != 0);
+            DriverStationSim.setFmsAttached((flags & FLAG_FMS_ATTACHED) != 0);
+            DriverStationSim.setAllianceStationId(AllianceStationID.values()[(int) frame[ALLIANCE_STATION]]);
+            DriverStationSim.setMatchTime(frame[MATCH_TIME]);
+
+            for (int stick = 0; stick < STICK_COUNT; stick++) {
+                int base = STICKS_START + stick * STICK_SIZE;
+                int axisCount = (int) frame[base + STICK_AXIS_COUNT];
+                DriverStationSim.setJoystickAxisCount(stick, axisCount);
+                for (int axis = 0; axis < axisCount; axis++) {
+                    DriverStationSim.setJoystickAxis(stick, axis, frame[base + STICK_AXES + axis]);
+                }
+                DriverStationSim.setJoystickButtonCount(stick, (int) frame[base + STICK_BUTTON_COUNT]);
+                DriverStationSim.setJoystickButtons(stick, (int) frame[base + STICK_BUTTONS]);
+                int povCount = (int) frame[base + STICK_POV_COUNT];
+                DriverStationSim.setJoystickPOVCount(stick, povCount);
+                if (povCount > 0) {
+                    DriverStationSim.setJoystickPOV(stick, 0, (int) frame[base + STICK_POV]);
+                }
+            }
+            DriverStationSim.notifyNewData();
+
+            elevatorEncoder.setDistance(frame[ELEVATOR_DISTANCE]);
+            // Elevator.getEndstop() inverts the raw input
+            elevatorEndstop.setValue(frame[ELEVATOR_ENDSTOP] == 0.0);
+            if (!Double.isNaN(frame[ELEVATOR_EDGE_TIMESTAMP])) {
+                elevator.injectHomingEdge(frame[ELEVATOR_EDGE_TIMESTAMP], frame[ELEVATOR_EDGE_DISTANCE]);
+            }
+            beamBreak.setValue(frame[BEAM_BREAK] != 0.0);
+
+            tvPublisher.set(frame[LIMELIGHT_TV]);
+            txPublisher.set(frame[LIMELIGHT_TX]);
+            tyPublisher.set(frame[LIMELIGHT_TY]);
+            taPublisher.set(frame[LIMELIGHT_TA]);
+            tlPublisher.set(frame[LIMELIGHT_TL]);
+            clPublisher.set(frame[LIMELIGHT_CL]);
+        }
+
+        /*
+         * Select a SmartDashboard chooser option, as the dashboard would.
+         */
+        public void applyChooser(String chooserKey, String selected) {
+            chooserPublishers
+                .computeIfAbsent(chooserKey, key -> smartDashboard.getSubTable(key).getStringTopic("selected").publish())
+                .set(selected);
+        }
+    }
+}
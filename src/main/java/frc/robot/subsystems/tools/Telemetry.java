@@ -0,0 +1,194 @@
+package frc.robot.subsystems.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Change-only, rate limited NetworkTables publishing.
+ * Topics are created once through this class; set() only stores the value. periodic() (once per loop) then
+ * publishes each topic whose value changed since it was last published, and no more often than that topic's
+ * maximum rate. The newest value always goes out eventually, so a rate limited topic never ends on a stale value.
+ */
+public class Telemetry {
+    private final List<Topic> topics = new ArrayList<>();
+
+    /*
+     * Publish every topic that has a changed value and is due. Call once per loop.
+     */
+    public void periodic() {
+        long nowMicros = RobotController.getFPGATime();
+        for (int i = 0; i < topics.size(); i++) {
+            topics.get(i).flush(nowMicros);
+        }
+    }
+
+    public DoubleTopic doubleTopic(NetworkTable table, String name, double maxRateHz) {
+        return add(new DoubleTopic(table.getDoubleTopic(name).publish(), maxRateHz));
+    }
+
+    public BooleanTopic booleanTopic(NetworkTable table, String name, double maxRateHz) {
+        return add(new BooleanTopic(table.getBooleanTopic(name).publish(), maxRateHz));
+    }
+
+    public IntegerTopic integerTopic(NetworkTable table, String name, double maxRateHz) {
+        return add(new IntegerTopic(table.getIntegerTopic(name).publish(), maxRateHz));
+    }
+
+    public StringTopic stringTopic(NetworkTable table, String name, double maxRateHz) {
+        return add(new StringTopic(table.getStringTopic(name).publish(), maxRateHz));
+    }
+
+    /*
+     * A string topic fed from an enum. Publishes the constant's name (an interned string) only when the constant changes.
+     */
+    public <E extends Enum<E>> EnumTopic<E> enumTopic(NetworkTable table, String name, double maxRateHz) {
+        return add(new EnumTopic<E>(table.getStringTopic(name).publish(), maxRateHz));
+    }
+
+    private <T extends Topic> T add(T topic) {
+        topics.add(topic);
+        return topic;
+    }
+
+    /**
+     * Shared dirty tracking and rate limiting.
+     */
+    private abstract static class Topic {
+        private final long minIntervalMicros;
+        private long lastPublishMicros = 0;
+        protected boolean published = false;
+        protected boolean dirty = false;
+
+        Topic(double maxRateHz) {
+            this.minIntervalMicros = (long) (1e6 / maxRateHz);
+        }
+
+        final void flush(long nowMicros) {
+            if (dirty && (!published || nowMicros - lastPublishMicros >= minIntervalMicros)) {
+                publish();
+                published = true;
+                dirty = false;
+                lastPublishMicros = nowMicros;
+            }
+        }
+
+        abstract void publish();
+    }
+
+    public static class DoubleTopic extends Topic {
+        private final DoublePublisher publisher;
+        private double pending;
+        private double lastPublished;
+
+        DoubleTopic(DoublePublisher publisher, double maxRateHz) {
+            super(maxRateHz);
+            this.publisher = publisher;
+        }
+
+        public void set(double value) {
+            pending = value;
+            dirty = !published || value != lastPublished;
+        }
+
+        @Override
+        void publish() {
+            publisher.set(pending);
+            lastPublished = pending;
+        }
+    }
+
+    public static class BooleanTopic extends Topic {
+        private final BooleanPublisher publisher;
+        private boolean pending;
+        private boolean lastPublished;
+
+        BooleanTopic(BooleanPublisher publisher, double maxRateHz) {
+            super(maxRateHz);
+            this.publisher = publisher;
+        }
+
+        public void set(boolean value) {
+            pending = value;
+            dirty = !published || value != lastPublished;
+        }
+
+        @Override
+        void publish() {
+            publisher.set(pending);
+            lastPublished = pending;
+        }
+    }
+
+    public static class IntegerTopic extends Topic {
+        private final IntegerPublisher publisher;
+        private long pending;
+        private long lastPublished;
+
+        IntegerTopic(IntegerPublisher publisher, double maxRateHz) {
+            super(maxRateHz);
+            this.publisher = publisher;
+        }
+
+        public void set(long value) {
+            pending = value;
+            dirty = !published || value != lastPublished;
+        }
+
+        @Override
+        void publish() {
+            publisher.set(pending);
+            lastPublished = pending;
+        }
+    }
+
+    public static class StringTopic extends Topic {
+        private final StringPublisher publisher;
+        private String pending = "";
+        private String lastPublished = "";
+
+        StringTopic(StringPublisher publisher, double maxRateHz) {
+            super(maxRateHz);
+            this.publisher = publisher;
+        }
+
+        public void set(String value) {
+            pending = value;
+            dirty = !published || !value.equals(lastPublished);
+        }
+
+        @Override
+        void publish() {
+            publisher.set(pending);
+            lastPublished = pending;
+        }
+    }
+
+    public static class EnumTopic<E extends Enum<E>> extends Topic {
+        private final StringPublisher publisher;
+        private E pending;
+        private E lastPublished;
+
+        EnumTopic(StringPublisher publisher, double maxRateHz) {
+            super(maxRateHz);
+            this.publisher = publisher;
+        }
+
+        public void set(E value) {
+            pending = value;
+            dirty = !published || value != lastPublished;
+        }
+
+        @Override
+        void publish() {
+            publisher.set(pending == null ? "None" : pending.name());
+            lastPublished = pending;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package frc.robot.subsystems.tools;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Threads;
+
+/**
+ * Scheduling priority for the robot's own threads.
+ * On the roboRIO a real-time (SCHED_FIFO) thread preempts everything running at normal priority, which includes
+ * NetworkTables, CameraServer and the JVM's own threads. Threads started from a real-time thread inherit its priority,
+ * so only raise a thread once it has started any helper threads it owns.
+ */
+public final class ThreadPriorities {
+    private ThreadPriorities() {}
+
+    /*
+     * Set the priority of the calling thread. priority is 1 - 99 for real-time threads (higher runs first)
+     * and is ignored otherwise. Returns whether the thread ended up real-time.
+     * Does nothing off the roboRIO (simulation, replay), where threads stay at normal priority.
+     */
+    public static boolean applyToCurrentThread(String name, boolean realTime, int priority) {
+        if (!RobotBase.isReal()) {
+            return false;
+        }
+        if (!Threads.setCurrentThreadPriority(realTime, priority) && realTime) {
+            DriverStation.reportWarning("Couldn't make the " + name + " thread real-time", false);
+        }
+        return Threads.getCurrentThreadIsRealTime();
+    }
+}
@@ -0,0 +1,164 @@
+package frc.robot.subsystems.tools;
+
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import frc.robot.Constants;
+import frc.robot.LimelightHelpers;
+
+/**
+ * Decides which Limelight pose estimates are good enough to move the robot's pose, and how far to trust them.
+ *
+ * Each loop, offer() every new frame. A frame is rejected if it sees no tags, if it sees one tag that's ambiguous,
+ * if its tags are too far away, if the pose is off the field, or if it's too old. Accepted frames are copied into a
+ * fixed size batch with standard deviations that grow with distance squared and shrink with tag count; the pose
+ * consumer reads the batch, then clear()s it for the next loop.
+ * Counts of accepted and rejected frames (by reason) are published to the "Vision" table for tuning.
+ * Nothing allocates once constructed.
+ */
+public class VisionFilter {
+    public enum Rejection {
+        NO_TAGS,
+        AMBIGUITY,
+        DISTANCE,
+        OUT_OF_FIELD,
+        STALE,
+        BATCH_FULL
+    }
+
+    /**
+     * One accepted vision measurement. Owned by the filter; only valid until the next clear().
+     */
+    public static class Measurement {
+        public double x;
+        public double y;
+        public double yawDegrees;
+        public double timestampSeconds;
+        public double stdDevXY;
+        public double stdDevHeading;
+        public int tagCount;
+    }
+
+    private static final Rejection[] REJECTIONS = Rejection.values();
+
+    private final Measurement[] batch;
+    private int batchSize = 0;
+
+    private long accepted = 0;
+    private final long[] rejected = new long[REJECTIONS.length];
+
+    private final IntegerPublisher networkAccepted;
+    private final IntegerPublisher[] networkRejected = new IntegerPublisher[REJECTIONS.length];
+
+    public VisionFilter(int batchCapacity) {
+        batch = new Measurement[batchCapacity];
+        for (int i = 0; i < batchCapacity; i++) {
+            batch[i] = new Measurement();
+        }
+
+        NetworkTable visionTable = NetworkTableInstance.getDefault().getTable("Vision");
+        networkAccepted = visionTable.getIntegerTopic("Accepted").publish();
+        NetworkTable rejectedTable = visionTable.getSubTable("Rejected");
+        for (Rejection rejection : REJECTIONS) {
+            networkRejected[rejection.ordinal()] = rejectedTable.getIntegerTopic(rejection.name()).publish();
+        }
+    }
+
+    /*
+     * Check one pose estimate, and add it to this loop's batch if it passes.
+     * nowSeconds is the current FPGA time. Returns whether it was accepted.
+     */
+    public boolean offer(LimelightHelpers.PoseEstimateBuffer estimate, double nowSeconds) {
+        Rejection rejection = check(estimate, nowSeconds);
+        if (rejection == null && batchSize == batch.length) {
+            rejection = Rejection.BATCH_FULL;
+        }
+        if (rejection != null) {
+            rejected[rejection.ordinal()]++;
+            return false;
+        }
+
+        // Trust falls off with distance squared, and each extra tag constrains the solve further
+        double distanceScale = Math.max(estimate.avgTagDist, 1.0);
+        double scale = distanceScale * distanceScale / estimate.tagCount;
+
+        Measurement measurement = batch[batchSize++];
+        measurement.x = estimate.x;
+        measurement.y = estimate.y;
+        measurement.yawDegrees = estimate.yawDegrees;
+        measurement.timestampSeconds = estimate.timestampSeconds;
+        measurement.stdDevXY = Constants.PoseEstimation.visionStdDevXY * scale;
+        measurement.stdDevHeading = estimate.isMegaTag2
+            ? Constants.PoseEstimation.megaTag2StdDevHeading
+            : Constants.PoseEstimation.visionStdDevHeading * scale;
+        measurement.tagCount = estimate.tagCount;
+        accepted++;
+        return true;
+    }
+
+    /*
+     * The reason a frame would be rejected, or null if it's usable.
+     */
+    private static Rejection check(LimelightHelpers.PoseEstimateBuffer estimate, double nowSeconds) {
+        if (!estimate.valid || estimate.tagCount == 0) {
+            return Rejection.NO_TAGS;
+        }
+        if (estimate.tagCount == 1) {
+            // A lone tag can flip between two poses; the Limelight scores how close the two are
+            if (estimate.rawFiducials.count > 0 && estimate.rawFiducials.ambiguity[0] > Constants.PoseEstimation.maxSingleTagAmbiguity) {
+                return Rejection.AMBIGUITY;
+            }
+            if (estimate.avgTagDist > Constants.PoseEstimation.maxSingleTagDistance) {
+                return Rejection.DISTANCE;
+            }
+        } else if (estimate.avgTagDist > Constants.PoseEstimation.maxMultiTagDistance) {
+            return Rejection.DISTANCE;
+        }
+
+        double margin = Constants.PoseEstimation.fieldMarginMeters;
+        if (estimate.x < -margin || estimate.x > Constants.Field.lengthMeters + margin
+                || estimate.y < -margin || estimate.y > Constants.Field.widthMeters + margin) {
+            return Rejection.OUT_OF_FIELD;
+        }
+        if (nowSeconds - estimate.timestampSeconds > Constants.PoseEstimation.maxVisionAgeSeconds) {
+            return Rejection.STALE;
+        }
+        return null;
+    }
+
+    /*
+     * Number of measurements accepted since the last clear().
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public Measurement getMeasurement(int index) {
+        return batch[index];
+    }
+
+    /*
+     * Empty the batch for the next loop.
+     */
+    public void clear() {
+        batchSize = 0;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getRejected(Rejection rejection) {
+        return rejected[rejection.ordinal()];
+    }
+
+    /*
+     * Publish the accepted/rejected counts (totals since startup).
+     */
+    public void publish() {
+        networkAccepted.set(accepted);
+        for (int i = 0; i < REJECTIONS.length; i++) {
+            networkRejected[i].set(rejected[i]);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks, field by field, that the streaming ResultsDecoder agrees with the ObjectMapper path on the Limelight JSON
+ * dumps in src/jmh/resources/limelight (the same ones LimelightJsonBenchmark measures).
+ * The streaming decoder skips the Retro/Classifier/Detector/Barcode sections, so only the fields it decodes are compared.
+ */
+class LimelightResultsDecoderTest {
+    private static final String[] FILES = {
+        "no_targets.json",
+        "one_tag.json",
+        "two_tags.json",
+        "six_tags_mixed.json",
+        "truncated.json"
+    };
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void matchesObjectMapperOnCorpus() {
+        LimelightHelpers.ResultsDecoder decoder = new LimelightHelpers.ResultsDecoder();
+        for (String file : FILES) {
+            String json = loadJson(file);
+            compare(file, LimelightHelpers.parseResults(json), decoder.decode(json));
+        }
+    }
+
+    /*
+     * The decoder reuses its results and targets, so decode every file straight after every other one:
+     * nothing from the previous frame may leak into the next.
+     */
+    @Test
+    void nothingCarriesOverBetweenFrames() {
+        LimelightHelpers.ResultsDecoder decoder = new LimelightHelpers.ResultsDecoder();
+        for (String previous : FILES) {
+            for (String file : FILES) {
+                decoder.decode(loadJson(previous));
+                String json = loadJson(file);
+                compare(previous + " then " + file, LimelightHelpers.parseResults(json), decoder.decode(json));
+            }
+        }
+    }
+
+    /*
+     * Decoding into one buffer must leave the results in the others alone (the results worker relies on this).
+     */
+    @Test
+    void buffersAreIndependent() {
+        LimelightHelpers.ResultsDecoder decoder = new LimelightHelpers.ResultsDecoder(LimelightHelpers.ResultsDecoder.DEFAULT_FIDUCIAL_CAPACITY, 2);
+        String json = loadJson("six_tags_mixed.json");
+        LimelightHelpers.LimelightResults held = decoder.decode(json, 0);
+        for (String file : FILES) {
+            decoder.decode(loadJson(file), 1);
+            compare("six_tags_mixed.json while decoding " + file, LimelightHelpers.parseResults(json), held);
+        }
+    }
+
+    private static void compare(String file, LimelightHelpers.LimelightResults expected, LimelightHelpers.LimelightResults actual) {
+        assertEquals(expected.error == null, actual.error == null, file + ": error");
+        if (expected.error != null) {
+            return;
+        }
+        assertEquals(expected.pipelineID, actual.pipelineID, EPSILON, file + ": pID");
+        assertEquals(expected.latency_pipeline, actual.latency_pipeline, EPSILON, file + ": tl");
+        assertEquals(expected.latency_capture, actual.latency_capture, EPSILON, file + ": cl");
+        assertEquals(expected.timestamp_LIMELIGHT_publish, actual.timestamp_LIMELIGHT_publish, EPSILON, file + ": ts");
+        assertEquals(expected.timestamp_RIOFPGA_capture, actual.timestamp_RIOFPGA_capture, EPSILON, file + ": ts_rio");
+        assertEquals(expected.valid, actual.valid, file + ": v");
+        assertArrayEquals(expected.botpose, actual.botpose, EPSILON, file + ": botpose");
+        assertArrayEquals(expected.botpose_wpired, actual.botpose_wpired, EPSILON, file + ": botpose_wpired");
+        assertArrayEquals(expected.botpose_wpiblue, actual.botpose_wpiblue, EPSILON, file + ": botpose_wpiblue");
+        assertEquals(expected.botpose_tagcount, actual.botpose_tagcount, EPSILON, file + ": botpose_tagcount");
+        assertEquals(expected.botpose_span, actual.botpose_span, EPSILON, file + ": botpose_span");
+        assertEquals(expected.botpose_avgdist, actual.botpose_avgdist, EPSILON, file + ": botpose_avgdist");
+        assertEquals(expected.botpose_avgarea, actual.botpose_avgarea, EPSILON, file + ": botpose_avgarea");
+        assertArrayEquals(expected.camerapose_robotspace, actual.camerapose_robotspace, EPSILON, file + ": t6c_rs");
+
+        assertEquals(expected.targets_Fiducials.length, actual.targets_Fiducials.length, file + ": Fiducial count");
+        for (int i = 0; i < expected.targets_Fiducials.length; i++) {
+            LimelightHelpers.LimelightTarget_Fiducial e = expected.targets_Fiducials[i];
+            LimelightHelpers.LimelightTarget_Fiducial a = actual.targets_Fiducials[i];
+            String prefix = file + ": Fiducial[" + i + "].";
+            assertEquals(e.fiducialID, a.fiducialID, EPSILON, prefix + "fID");
+            assertEquals(e.fiducialFamily, a.fiducialFamily, prefix + "fam");
+            assertEquals(e.ta, a.ta, EPSILON, prefix + "ta");
+            assertEquals(e.tx, a.tx, EPSILON, prefix + "tx");
+            assertEquals(e.ty, a.ty, EPSILON, prefix + "ty");
+            assertEquals(e.tx_pixels, a.tx_pixels, EPSILON, prefix + "txp");
+            assertEquals(e.ty_pixels, a.ty_pixels, EPSILON, prefix + "typ");
+            assertEquals(e.tx_nocrosshair, a.tx_nocrosshair, EPSILON, prefix + "tx_nocross");
+            assertEquals(e.ty_nocrosshair, a.ty_nocrosshair, EPSILON, prefix + "ty_nocross");
+            assertEquals(e.ts, a.ts, EPSILON, prefix + "ts");
+            assertEquals(e.getCameraPose_TargetSpace(), a.getCameraPose_TargetSpace(), prefix + "t6c_ts");
+            assertEquals(e.getRobotPose_FieldSpace(), a.getRobotPose_FieldSpace(), prefix + "t6r_fs");
+            assertEquals(e.getRobotPose_TargetSpace(), a.getRobotPose_TargetSpace(), prefix + "t6r_ts");
+            assertEquals(e.getTargetPose_CameraSpace(), a.getTargetPose_CameraSpace(), prefix + "t6t_cs");
+            assertEquals(e.getTargetPose_RobotSpace(), a.getTargetPose_RobotSpace(), prefix + "t6t_rs");
+        }
+    }
+
+    private static String loadJson(String name) {
+        try (InputStream in = LimelightResultsDecoderTest.class.getResourceAsStream("/limelight/" + name)) {
+            assertNotNull(in, "No limelight sample named " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
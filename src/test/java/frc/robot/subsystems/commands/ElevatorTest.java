@@ -0,0 +1,112 @@
+package frc.robot.subsystems.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Constants;
+import frc.robot.subsystems.tools.ElevatorSimulation;
+
+/**
+ * Runs the Elevator against ElevatorSimulation on a paused sim clock. Every robot loop is stepped in control periods,
+ * so the control Notifier runs exactly as often as it would on the robot.
+ * There is only one set of elevator devices in the HAL, so every test shares the same Elevator and starts by homing.
+ */
+class ElevatorTest {
+    private static final double CONTROL_PERIOD = Constants.Elevator.controlPeriodSeconds;
+    private static final int STEPS_PER_LOOP = (int) Math.round(TimedRobot.kDefaultPeriod / CONTROL_PERIOD);
+    // How far the height may be from where it should be after homing (m): the carriage coasts a little past the edge
+    private static final double HOME_TOLERANCE = 0.01;
+
+    private static Elevator elevator;
+    private static ElevatorSimulation simulation;
+
+    @BeforeAll
+    static void setUp() {
+        assertTrue(HAL.initialize(500, 0), "Failed to initialize the HAL sim");
+        SimHooks.pauseTiming();
+
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAutonomous(false);
+        DriverStationSim.setTest(false);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+        DriverStation.refreshData();
+
+        elevator = new Elevator();
+        simulation = new ElevatorSimulation(elevator);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        SimHooks.resumeTiming();
+    }
+
+    @Test
+    void homingZeroesTheElevator() {
+        // Lift the carriage and zero it there, so the elevator is wrong about its height until it homes
+        runLoops(1.0, () -> elevator.manualShift(0.5));
+        runLoops(0.5, elevator::hold);
+        assertTrue(simulation.getHeight() > Constants.Elevator.homingSlowHeight, "The carriage should start well above the endstop");
+        elevator.reset();
+
+        home();
+
+        assertTrue(elevator.getEndstop(), "The elevator should have come down onto the endstop");
+        assertEquals(Elevator.Position.HOME, elevator.getPosition());
+        // Zero is where the endstop switches
+        assertEquals(simulation.getHeight() - Constants.Elevator.simEndstopHeightMeters, elevator.getHeight(), HOME_TOLERANCE);
+    }
+
+    @Test
+    void gotoL4ReachesAndHoldsL4() {
+        home();
+
+        double timeout = 5.0;
+        double elapsed = 0.0;
+        while (!elevator.atGoal() && elapsed < timeout) {
+            runLoops(TimedRobot.kDefaultPeriod, elevator::gotoL4);
+            elapsed += TimedRobot.kDefaultPeriod;
+        }
+        assertTrue(elevator.atGoal(), "The elevator should reach L4 within " + timeout + "s");
+
+        // Keep commanding L4, as the teleop binding does while the button is held
+        for (int i = 0; i < 100; i++) {
+            runLoops(TimedRobot.kDefaultPeriod, elevator::gotoL4);
+            assertEquals(Elevator.Position.L4.height, elevator.getHeight(), Constants.Elevator.goalPositionTolerance);
+        }
+        assertTrue(elevator.atGoal(), "The elevator should still be at L4");
+        assertEquals(Elevator.Position.L4, elevator.getPosition());
+    }
+
+    /*
+     * Call home() every loop until the elevator has come to rest on the endstop.
+     */
+    private static void home() {
+        runLoops(5.0, elevator::home);
+    }
+
+    /*
+     * Run the robot loop for the given time, calling mainLoop every loop after the elevator's own periodic().
+     */
+    private static void runLoops(double seconds, Runnable mainLoop) {
+        int loops = (int) Math.round(seconds / TimedRobot.kDefaultPeriod);
+        for (int loop = 0; loop < loops; loop++) {
+            elevator.latchInputs();
+            elevator.periodic();
+            mainLoop.run();
+            for (int step = 0; step < STEPS_PER_LOOP; step++) {
+                simulation.update(CONTROL_PERIOD);
+                SimHooks.stepTiming(CONTROL_PERIOD);
+            }
+        }
+    }
+}